@@ -7,31 +7,39 @@ import hudson.tasks.BuildStepMonitor;
 import hudson.tasks.Builder;
 import hudson.util.FormValidation;
 import hudson.util.ListBoxModel;
+import io.metersphere.client.CatalogCache;
 import io.metersphere.client.MeterSphereClient;
 import io.metersphere.commons.constants.Method;
 import io.metersphere.commons.model.*;
+import io.metersphere.commons.utils.ExecutionContext;
 import io.metersphere.commons.utils.LogUtil;
 import io.metersphere.commons.utils.MeterSphereUtils;
+import io.metersphere.commons.utils.SearchIndex;
 import jenkins.tasks.SimpleBuildStep;
 import net.sf.json.JSONObject;
-import org.apache.commons.beanutils.BeanUtils;
 import org.apache.commons.lang.StringUtils;
 import org.jenkinsci.Symbol;
 import org.kohsuke.stapler.DataBoundConstructor;
 import org.kohsuke.stapler.DataBoundSetter;
 import org.kohsuke.stapler.QueryParameter;
+import org.kohsuke.stapler.Stapler;
 import org.kohsuke.stapler.StaplerRequest;
 
 import javax.annotation.Nonnull;
+import javax.servlet.http.HttpSession;
 import java.io.IOException;
 import java.io.Serializable;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
-import java.util.Optional;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 
 public class MeterSphereBuilder extends Builder implements SimpleBuildStep, Serializable {
 
-    private static final String LOG_PREFIX = "[MeterSphere] ";
+    // 一个步骤中同时执行的测试计划/测试数量
+    private static final int DEFAULT_MAX_CONCURRENCY = 4;
 
     private final String msEndpoint;
     private final String msAccessKey;
@@ -50,6 +58,8 @@ public class MeterSphereBuilder extends Builder implements SimpleBuildStep, Seri
     private String mode; //运行模式
     private String openMode; //报告打开方式
     private String resourcePoolId; //运行环境
+    private Integer timeoutMinutes; //最长等待时间，单位分钟
+    private Integer maxConcurrency; //多个测试时的并发数
 
 
     @DataBoundConstructor
@@ -62,93 +72,89 @@ public class MeterSphereBuilder extends Builder implements SimpleBuildStep, Seri
     @Override
     public void perform(@Nonnull Run<?, ?> run, @Nonnull FilePath workspace, @Nonnull Launcher launcher,
                         @Nonnull TaskListener listener) throws InterruptedException, IOException {
-        MeterSphereUtils.logger = listener.getLogger();
         listener.getLogger().println("workspace=" + workspace);
         listener.getLogger().println("number=" + run.getNumber());
         listener.getLogger().println("url=" + run.getUrl());
         final MeterSphereClient client = new MeterSphereClient(this.msAccessKey, this.msSecretKey, this.msEndpoint);
-        log("执行方式: " + method);
+        // 报告打开方式按本次构建的 License 决定，不修改共用的配置
+        ExecutionContext context = new ExecutionContext(listener.getLogger(), client, run, openMode, timeoutMinutes);
+        context.log("执行方式: " + method);
         try {
-            List<TestCaseDTO> testCases;
-            Optional<TestCaseDTO> firstCase;
             EnvVars environment = run.getEnvironment(listener);
 
-            // 找到实际的project
-            String realProjectId = this.projectId;
+            // 提交前互不依赖的查询同时进行：License、用户ID和站点地址的预取、项目的查找
+            CompletableFuture<Boolean> license = client.checkLicenseAsync();
+            MeterSphereUtils.prefetchSession(client);
+            CompletableFuture<String> project = CompletableFuture.completedFuture(this.projectId);
             if (StringUtils.equals(projectType, "projectName")) {
-                realProjectId = Util.replaceMacro(this.projectName, environment);
-                if (StringUtils.isNotBlank(realProjectId)) {
-                    List<ProjectDTO> projectIds = client.getProjectIds(workspaceId);
-                    String finalRealProjectId = realProjectId;
-                    Optional<ProjectDTO> project = projectIds.stream()
-                            .filter(projectDTO -> projectDTO.getName().equals(finalRealProjectId) || projectDTO.getId().equals(finalRealProjectId))
-                            .findFirst();
-                    if (project.isPresent()) {
-                        realProjectId = project.get().getId();
-                    }
-                } else {
-                    realProjectId = projectId;
+                String name = Util.replaceMacro(this.projectName, environment);
+                if (StringUtils.isNotBlank(name)) {
+                    project = MeterSphereUtils.resolveProjectIdAsync(client, workspaceId, name);
                 }
             }
-            if (!client.checkLicense()) {
-                openMode = "auth";
-            }
-            boolean result = false;
+            String realProjectId = MeterSphereUtils.await(project);
+            // 多个测试计划/测试用逗号或换行分隔，同时查找，按名称查找使用各构建共用的缓存索引
+            List<MeterSphereUtils.RunTarget> targets = new ArrayList<>();
             switch (method) {
                 case Method.TEST_PLAN:
-                    result = MeterSphereUtils.runTestPlan(run, client, realProjectId, mode, testPlanId, resourcePoolId, openMode);
+                    for (String id : MeterSphereUtils.splitTargets(testPlanId)) {
+                        targets.add(MeterSphereUtils.RunTarget.testPlan(context, realProjectId, mode, id, id, resourcePoolId));
+                    }
                     break;
                 case Method.TEST_PLAN_NAME:
-                    String testPlanName = Util.replaceMacro(this.testPlanName, environment);
-
-                    List<TestPlanDTO> testPlans = client.getTestPlanIds(realProjectId, workspaceId);
-                    Optional<TestPlanDTO> first = testPlans.stream()
-                            .filter(plan -> StringUtils.equals(testPlanName, plan.getId()) || StringUtils.equals(testPlanName, plan.getName()))
-                            .findFirst();
-
-                    if (!first.isPresent()) {
-                        log("测试计划不存在");
-                        run.setResult(Result.FAILURE);
-                        return;
+                    Map<String, CompletableFuture<TestPlanDTO>> testPlans = new LinkedHashMap<>();
+                    for (String name : MeterSphereUtils.splitTargets(Util.replaceMacro(this.testPlanName, environment))) {
+                        testPlans.put(name, MeterSphereUtils.findTestPlanAsync(client, realProjectId, workspaceId, name));
                     }
-                    result = MeterSphereUtils.runTestPlan(run, client, realProjectId, mode, first.get().getId(), resourcePoolId, openMode);
-                    break;
-                case Method.SINGLE:
-                    testCases = client.getTestCases(realProjectId);//项目下
-                    firstCase = testCases.stream()
-                            .filter(testCase -> StringUtils.equals(testCaseId, testCase.getId()))
-                            .findFirst();
-                    if (!firstCase.isPresent()) {
-                        log("测试不存在");
-                        run.setResult(Result.FAILURE);
-                        return;
+                    for (Map.Entry<String, CompletableFuture<TestPlanDTO>> entry : testPlans.entrySet()) {
+                        TestPlanDTO testPlan = MeterSphereUtils.await(entry.getValue());
+                        if (testPlan == null) {
+                            context.log("测试计划不存在: " + entry.getKey());
+                            run.setResult(Result.FAILURE);
+                            return;
+                        }
+                        targets.add(MeterSphereUtils.RunTarget.testPlan(context, realProjectId, mode, testPlan.getId(), testPlan.getName(), resourcePoolId));
                     }
-                    result = MeterSphereUtils.getTestStepsBySingle(client, realProjectId, firstCase.get(), testPlanId, resourcePoolId, openMode);
                     break;
+                case Method.SINGLE:
                 case Method.SINGLE_NAME:
-                    String testCaseName = Util.replaceMacro(this.testCaseName, environment);
-                    testCases = client.getTestCases(realProjectId);//项目下
-                    firstCase = testCases.stream()
-                            .filter(testCase -> StringUtils.equals(testCaseName, testCase.getId()) ||
-                                    StringUtils.equals(testCaseName, testCase.getName() + " [" + testCase.getType() + "]" + " [" + testCase.getVersionName() + "]"))
-                            .findFirst();
-
-                    if (!firstCase.isPresent()) {
-                        log("测试不存在");
-                        run.setResult(Result.FAILURE);
-                        return;
+                    boolean byName = StringUtils.equals(method, Method.SINGLE_NAME);
+                    String caseNamesOrIds = byName ? Util.replaceMacro(this.testCaseName, environment) : testCaseId;
+                    Map<String, CompletableFuture<TestCaseDTO>> testCases = new LinkedHashMap<>();
+                    for (String nameOrId : MeterSphereUtils.splitTargets(caseNamesOrIds)) {
+                        testCases.put(nameOrId, MeterSphereUtils.findTestCaseAsync(client, realProjectId, nameOrId, byName));
+                    }
+                    for (Map.Entry<String, CompletableFuture<TestCaseDTO>> entry : testCases.entrySet()) {
+                        TestCaseDTO testCase = MeterSphereUtils.await(entry.getValue());
+                        if (testCase == null) {
+                            context.log("测试不存在: " + entry.getKey());
+                            run.setResult(Result.FAILURE);
+                            return;
+                        }
+                        targets.add(MeterSphereUtils.RunTarget.testCase(context, realProjectId, testCase, testPlanId, resourcePoolId));
                     }
-                    result = MeterSphereUtils.getTestStepsBySingle(client, realProjectId, firstCase.get(), testPlanId, resourcePoolId, openMode);
                     break;
                 default:
-                    run.setResult(Result.FAILURE);
-                    log("测试用例不存在");
+                    break;
+            }
+            if (!MeterSphereUtils.await(license)) {
+                context.setOpenMode("auth");
+            }
+            if (targets.isEmpty()) {
+                run.setResult(Result.FAILURE);
+                context.log("测试用例不存在");
+                return;
             }
+            int concurrency = maxConcurrency == null || maxConcurrency <= 0 ? DEFAULT_MAX_CONCURRENCY : maxConcurrency;
+            boolean result = MeterSphereUtils.runAll(context, targets, concurrency);
             // 使用case的结果
             run.setResult(result ? Result.SUCCESS : Result.FAILURE);
+        } catch (InterruptedException e) {
+            // 中止或 Jenkins 停止，由 Jenkins 标记构建结果
+            throw e;
         } catch (Exception e) {
             run.setResult(Result.FAILURE);
-            log("该测试请求未能通过，登陆MeterSphere网站查看该报告结果");
+            context.log("该测试请求未能通过，登陆MeterSphere网站查看该报告结果");
         }
 
     }
@@ -160,9 +166,12 @@ public class MeterSphereBuilder extends Builder implements SimpleBuildStep, Seri
     @Symbol("meterSphere")
     @Extension // This indicates to Jenkins that this is an implementation of an extension point.
     public static final class DescriptorImpl extends BuildStepDescriptor<Builder> {
-        private List<TestPlanDTO> testPlanList = new ArrayList<>();
-        private List<TestCaseDTO> testList = new ArrayList<>();
-        private List<ProjectDTO> projectList = new ArrayList<>();
+        // 当前用户最近加载的测试计划/测试列表在缓存中的标识保存在会话中，自动补全时从缓存中取搜索索引，
+        // 不同用户之间互不影响；会话中不保存索引本身
+        private static final String SESSION_TEST_PLANS = MeterSphereBuilder.class.getName() + ".testPlans";
+        private static final String SESSION_TEST_CASES = MeterSphereBuilder.class.getName() + ".testCases";
+        // 自动补全最多返回的条数
+        private static final int AUTO_COMPLETE_LIMIT = 50;
 
         public FormValidation doCheckAccount(
                 @QueryParameter String msAccessKey,
@@ -179,6 +188,9 @@ public class MeterSphereBuilder extends Builder implements SimpleBuildStep, Seri
             }
             try {
                 MeterSphereClient meterSphereClient = new MeterSphereClient(msAccessKey, msSecretKey, msEndpoint);
+                // 验证账号时不使用缓存的会话信息和列表
+                meterSphereClient.invalidateSession();
+                CatalogCache.invalidate(meterSphereClient);
                 meterSphereClient.checkUser();
                 meterSphereClient.getWorkspace();
             } catch (Exception e) {
@@ -197,11 +209,9 @@ public class MeterSphereBuilder extends Builder implements SimpleBuildStep, Seri
             items.add("请选择工作空间", "");
             try {
                 MeterSphereClient meterSphereClient = new MeterSphereClient(msAccessKey, msSecretKey, msEndpoint);
-                List<WorkspaceDTO> list = meterSphereClient.getWorkspace();
-                if (list != null && list.size() > 0) {
-                    for (WorkspaceDTO c : list) {
-                        items.add(c.getName(), c.getId());
-                    }
+                List<WorkspaceDTO> list = CatalogCache.get(meterSphereClient, "workspaces", meterSphereClient::getWorkspace);
+                for (WorkspaceDTO c : list) {
+                    items.add(c.getName(), c.getId());
                 }
             } catch (Exception e) {
                 LogUtil.error(e.getMessage(), e);
@@ -219,13 +229,8 @@ public class MeterSphereBuilder extends Builder implements SimpleBuildStep, Seri
             try {
                 items.add("请选择所属项目", "");
                 MeterSphereClient meterSphereClient = new MeterSphereClient(msAccessKey, msSecretKey, msEndpoint);
-                if (workspaceId != null && !workspaceId.equals("")) {
-                    projectList = meterSphereClient.getProjectIds(workspaceId);
-                }
-                if (projectList != null && projectList.size() > 0) {
-                    for (ProjectDTO c : projectList) {
-                        items.add(c.getName(), c.getId());
-                    }
+                for (ProjectDTO c : getProjects(meterSphereClient, workspaceId)) {
+                    items.add(c.getName(), c.getId());
                 }
 
             } catch (Exception e) {
@@ -245,18 +250,14 @@ public class MeterSphereBuilder extends Builder implements SimpleBuildStep, Seri
             try {
                 MeterSphereClient meterSphereClient = new MeterSphereClient(msAccessKey, msSecretKey, msEndpoint);
                 items.add("请选择测试计划", "");
-                if (StringUtils.isNotBlank(projectName)) {
-                    Optional<ProjectDTO> first = projectList.stream()
-                            .filter(projectDTO -> StringUtils.equals(projectName, projectDTO.getId()) || StringUtils.equals(projectName, projectDTO.getName()))
-                            .findFirst();
-                    first.ifPresent(projectDTO -> testPlanList = meterSphereClient.getTestPlanIds(projectDTO.getId(), workspaceId));
-                } else {
-                    if (projectId != null && !projectId.equals("")) {
-                        testPlanList = meterSphereClient.getTestPlanIds(projectId, workspaceId);
-                    }
-                }
-                if (testPlanList != null && testPlanList.size() > 0) {
-                    for (TestPlanDTO c : testPlanList) {
+                String realProjectId = resolveProjectId(meterSphereClient, workspaceId, projectId, projectName);
+                if (StringUtils.isNotBlank(realProjectId)) {
+                    String scope = CatalogCache.testPlansScope(realProjectId, workspaceId);
+                    SearchIndex<TestPlanDTO> testPlans = CatalogCache.index(meterSphereClient, scope,
+                            () -> meterSphereClient.getTestPlanIds(realProjectId, workspaceId),
+                            list -> SearchIndex.build(list, TestPlanDTO::getName));
+                    remember(SESSION_TEST_PLANS, CatalogCache.key(meterSphereClient, scope));
+                    for (TestPlanDTO c : testPlans.getItems()) {
                         items.add(c.getName(), c.getId());
                     }
                 }
@@ -271,6 +272,7 @@ public class MeterSphereBuilder extends Builder implements SimpleBuildStep, Seri
         public ListBoxModel doFillTestCaseIdItems(@QueryParameter String msAccessKey,
                                                   @QueryParameter String msSecretKey,
                                                   @QueryParameter String msEndpoint,
+                                                  @QueryParameter String workspaceId,
                                                   @QueryParameter String projectId,
                                                   @QueryParameter String projectName
         ) {
@@ -278,20 +280,15 @@ public class MeterSphereBuilder extends Builder implements SimpleBuildStep, Seri
             try {
                 MeterSphereClient meterSphereClient = new MeterSphereClient(msAccessKey, msSecretKey, msEndpoint);
                 items.add("请选择测试名称", "");
-                if (StringUtils.isNotBlank(projectName)) {
-                    Optional<ProjectDTO> first = projectList.stream()
-                            .filter(projectDTO -> StringUtils.equals(projectName, projectDTO.getId()) || StringUtils.equals(projectName, projectDTO.getName()))
-                            .findFirst();
-                    first.ifPresent(projectDTO -> testList = meterSphereClient.getTestCases(projectDTO.getId()));
-                } else {
-                    if (projectId != null && !projectId.equals("")) {
-                        testList = meterSphereClient.getTestCases(projectId);
-                    }
-                }
-
-                if (testList != null && testList.size() > 0) {
-                    for (TestCaseDTO c : testList) {
-                        items.add(c.getName() + " [" + c.getType() + "]" + " [" + c.getVersionName() + "]", c.getId());
+                String realProjectId = resolveProjectId(meterSphereClient, workspaceId, projectId, projectName);
+                if (StringUtils.isNotBlank(realProjectId)) {
+                    String scope = CatalogCache.testCasesScope(realProjectId);
+                    SearchIndex<TestCaseDTO> testCases = CatalogCache.index(meterSphereClient, scope,
+                            () -> meterSphereClient.getTestCases(realProjectId),
+                            list -> SearchIndex.buildAt(list, MeterSphereUtils.displayNames(list)));
+                    remember(SESSION_TEST_CASES, CatalogCache.key(meterSphereClient, scope));
+                    for (TestCaseDTO c : testCases.getItems()) {
+                        items.add(MeterSphereUtils.getDisplayName(c), c.getId());
                     }
                 }
 
@@ -305,26 +302,17 @@ public class MeterSphereBuilder extends Builder implements SimpleBuildStep, Seri
         public ListBoxModel doFillEnvironmentIdItems(@QueryParameter String msAccessKey,
                                                      @QueryParameter String msSecretKey,
                                                      @QueryParameter String msEndpoint,
+                                                     @QueryParameter String workspaceId,
                                                      @QueryParameter String projectId,
                                                      @QueryParameter String projectName) {
             ListBoxModel items = new ListBoxModel();
             try {
                 MeterSphereClient meterSphereClient = new MeterSphereClient(msAccessKey, msSecretKey, msEndpoint);
                 items.add("请选择运行环境", "");
-                List<ApiTestEnvironmentDTO> list = new ArrayList<>();
-                if (StringUtils.isNotBlank(projectName)) {
-                    Optional<ProjectDTO> first = projectList.stream()
-                            .filter(projectDTO -> StringUtils.equals(projectName, projectDTO.getId()) || StringUtils.equals(projectName, projectDTO.getName()))
-                            .findFirst();
-                    if (first.isPresent()) {
-                        list = meterSphereClient.getEnvironmentIds(first.get().getId());
-                    }
-                } else {
-                    if (projectId != null && !projectId.equals("")) {
-                        list = meterSphereClient.getEnvironmentIds(projectId);
-                    }
-                }
-                if (list != null && list.size() > 0) {
+                String realProjectId = resolveProjectId(meterSphereClient, workspaceId, projectId, projectName);
+                if (StringUtils.isNotBlank(realProjectId)) {
+                    List<ApiTestEnvironmentDTO> list = CatalogCache.get(meterSphereClient, "environments|" + realProjectId,
+                            () -> meterSphereClient.getEnvironmentIds(realProjectId));
                     for (ApiTestEnvironmentDTO c : list) {
                         items.add(c.getName(), c.getId());
                     }
@@ -345,12 +333,9 @@ public class MeterSphereBuilder extends Builder implements SimpleBuildStep, Seri
             try {
                 MeterSphereClient meterSphereClient = new MeterSphereClient(msAccessKey, msSecretKey, msEndpoint);
                 items.add("请选择资源池", "");
-                List<EnvironmentPoolDTO> list = meterSphereClient.getPoolEnvironmentIds();
-
-                if (list != null && list.size() > 0) {
-                    for (EnvironmentPoolDTO c : list) {
-                        items.add(c.getName(), c.getId());
-                    }
+                List<EnvironmentPoolDTO> list = CatalogCache.get(meterSphereClient, "resourcePools", meterSphereClient::getPoolEnvironmentIds);
+                for (EnvironmentPoolDTO c : list) {
+                    items.add(c.getName(), c.getId());
                 }
 
             } catch (Exception e) {
@@ -360,44 +345,55 @@ public class MeterSphereBuilder extends Builder implements SimpleBuildStep, Seri
         }
 
         public AutoCompletionCandidates doAutoCompleteTestPlanName(@QueryParameter String value) {
+            return autoComplete(SESSION_TEST_PLANS, value);
+        }
+
+        public AutoCompletionCandidates doAutoCompleteTestCaseName(@QueryParameter String value) {
+            return autoComplete(SESSION_TEST_CASES, value);
+        }
+
+        private static AutoCompletionCandidates autoComplete(String attribute, String value) {
             AutoCompletionCandidates c = new AutoCompletionCandidates();
-            if (StringUtils.isBlank(value)) {
-                testPlanList.stream().map(TestPlanDTO::getName).forEach(c::add);
-            } else {
-                testPlanList.stream().map(TestPlanDTO::getName).forEach(v -> {
-                    if (v.toLowerCase().contains(value.toLowerCase())) {
-                        c.add(v);
-                    }
-                });
+            SearchIndex<?> index = recall(attribute);
+            if (index != null) {
+                index.search(value, AUTO_COMPLETE_LIMIT).forEach(c::add);
             }
-
             return c;
         }
 
-        public AutoCompletionCandidates doAutoCompleteTestCaseName(@QueryParameter String value) {
-            AutoCompletionCandidates c = new AutoCompletionCandidates();
-            List<TestCaseDTO> list = new ArrayList<>();
-            testList.forEach(test -> {
-                try {
-                    TestCaseDTO clone = (TestCaseDTO) BeanUtils.cloneBean(test);
-                    clone.setName(clone.getName() + " [" + clone.getType() + "]" + " [" + clone.getVersionName() + "]");
-                    list.add(clone);
-                } catch (Exception e) {
-                    e.printStackTrace();
-                }
-            });
-
-            if (StringUtils.isBlank(value)) {
-                list.stream().map(TestCaseDTO::getName).forEach(c::add);
-            } else {
-                list.stream().map(TestCaseDTO::getName).forEach(v -> {
-                    if (v.toLowerCase().contains(value.toLowerCase())) {
-                        c.add(v);
-                    }
-                });
+        private static List<ProjectDTO> getProjects(MeterSphereClient meterSphereClient, String workspaceId) {
+            if (StringUtils.isBlank(workspaceId)) {
+                return Collections.emptyList();
+            }
+            return CatalogCache.get(meterSphereClient, CatalogCache.projectsScope(workspaceId), () -> meterSphereClient.getProjectIds(workspaceId));
+        }
+
+        /**
+         * 输入了项目名称时按名称或ID在工作空间的项目中查找，否则使用选中的项目
+         */
+        private static String resolveProjectId(MeterSphereClient meterSphereClient, String workspaceId, String projectId, String projectName) {
+            if (StringUtils.isBlank(projectName)) {
+                return projectId;
             }
+            return getProjects(meterSphereClient, workspaceId).stream()
+                    .filter(projectDTO -> StringUtils.equals(projectName, projectDTO.getId()) || StringUtils.equals(projectName, projectDTO.getName()))
+                    .map(ProjectDTO::getId)
+                    .findFirst()
+                    .orElse(null);
+        }
 
-            return c;
+        private static void remember(String attribute, String cacheKey) {
+            StaplerRequest request = Stapler.getCurrentRequest();
+            if (request != null) {
+                request.getSession().setAttribute(attribute, cacheKey);
+            }
+        }
+
+        private static SearchIndex<?> recall(String attribute) {
+            StaplerRequest request = Stapler.getCurrentRequest();
+            HttpSession session = request == null ? null : request.getSession(false);
+            Object value = session == null ? null : session.getAttribute(attribute);
+            return value instanceof String ? CatalogCache.peekIndex((String) value) : null;
         }
 
 
@@ -423,11 +419,6 @@ public class MeterSphereBuilder extends Builder implements SimpleBuildStep, Seri
         return (DescriptorImpl) super.getDescriptor();
     }
 
-
-    private void log(String msg) {
-        MeterSphereUtils.logger.println(LOG_PREFIX + msg);
-    }
-
     @DataBoundSetter
     public void setWorkspaceId(String workspaceId) {
         this.workspaceId = workspaceId;
@@ -493,6 +484,16 @@ public class MeterSphereBuilder extends Builder implements SimpleBuildStep, Seri
         this.testCaseName = testCaseName;
     }
 
+    @DataBoundSetter
+    public void setTimeoutMinutes(Integer timeoutMinutes) {
+        this.timeoutMinutes = timeoutMinutes;
+    }
+
+    @DataBoundSetter
+    public void setMaxConcurrency(Integer maxConcurrency) {
+        this.maxConcurrency = maxConcurrency;
+    }
+
     public String getMsEndpoint() {
         return msEndpoint;
     }
@@ -556,4 +557,12 @@ public class MeterSphereBuilder extends Builder implements SimpleBuildStep, Seri
     public String getTestCaseName() {
         return testCaseName;
     }
+
+    public Integer getTimeoutMinutes() {
+        return timeoutMinutes;
+    }
+
+    public Integer getMaxConcurrency() {
+        return maxConcurrency;
+    }
 }
\ No newline at end of file
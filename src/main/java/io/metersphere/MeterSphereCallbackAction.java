@@ -0,0 +1,123 @@
+package io.metersphere;
+
+import com.alibaba.fastjson.JSON;
+import com.alibaba.fastjson.JSONObject;
+import hudson.Extension;
+import hudson.model.UnprotectedRootAction;
+import hudson.security.csrf.CrumbExclusion;
+import io.metersphere.client.RunStatusScheduler;
+import io.metersphere.commons.utils.LogUtil;
+import org.kohsuke.stapler.HttpResponse;
+import org.kohsuke.stapler.HttpResponses;
+import org.kohsuke.stapler.StaplerRequest;
+import org.kohsuke.stapler.interceptor.RequirePOST;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * 接收 MeterSphere 执行结束回调，地址为 ${JENKINS_URL}/metersphere-callback/。
+ * 请求体为 {"reportId": "...", "status": "...", "signature": "..."}，签名见 MeterSphereClient#verifyCallback，
+ * 只接受当前正在等待的报告，校验通过后立即唤醒等待中的构建。
+ */
+@Extension
+public class MeterSphereCallbackAction implements UnprotectedRootAction {
+
+    public static final String URL_NAME = "metersphere-callback";
+
+    // 回调时间戳允许的误差，单位毫秒
+    private static final long MAX_SKEW_MILLIS = Long.getLong("io.metersphere.callback.maxSkewMillis", 300000L);
+
+    // 已处理过的签名，防止重放
+    private static final ConcurrentMap<String, Long> SEEN_SIGNATURES = new ConcurrentHashMap<>();
+
+    @Override
+    public String getIconFileName() {
+        return null;
+    }
+
+    @Override
+    public String getDisplayName() {
+        return null;
+    }
+
+    @Override
+    public String getUrlName() {
+        return URL_NAME;
+    }
+
+    @RequirePOST
+    public HttpResponse doIndex(StaplerRequest req) throws IOException {
+        JSONObject body;
+        try {
+            body = JSON.parseObject(req.getInputStream(), StandardCharsets.UTF_8, JSONObject.class);
+        } catch (Exception e) {
+            return HttpResponses.error(400, "请求体不是有效的JSON");
+        }
+        if (body == null) {
+            return HttpResponses.error(400, "请求体为空");
+        }
+        String reportId = body.getString("reportId");
+        String status = body.getString("status");
+        String signature = body.getString("signature");
+        if (reportId == null || status == null || signature == null) {
+            return HttpResponses.error(400, "缺少 reportId、status 或 signature");
+        }
+
+        if (!markSeen(signature, System.currentTimeMillis(), MAX_SKEW_MILLIS)) {
+            return HttpResponses.error(409, "重复的回调");
+        }
+
+        RunStatusScheduler.CallbackResult result = RunStatusScheduler.onCallback(reportId, status,
+                client -> client.verifyCallback(signature, reportId, status, MAX_SKEW_MILLIS));
+        switch (result) {
+            case ACCEPTED:
+                return HttpResponses.ok();
+            case UNKNOWN_REPORT:
+                // 未登记的报告不占用重放记录，之后登记了仍可重新推送
+                forget(signature);
+                return HttpResponses.error(404, "没有等待中的报告: " + reportId);
+            default:
+                forget(signature);
+                LogUtil.warn("MeterSphere回调签名校验失败: " + reportId);
+                return HttpResponses.error(403, "签名校验失败");
+        }
+    }
+
+    /**
+     * 记录处理过的签名，签名已处理过时返回false。
+     * 超过时间戳误差两倍的签名已无法通过校验，不再保留
+     */
+    static boolean markSeen(String signature, long now, long maxSkewMillis) {
+        SEEN_SIGNATURES.values().removeIf(seenAt -> now - seenAt > 2 * maxSkewMillis);
+        return SEEN_SIGNATURES.putIfAbsent(signature, now) == null;
+    }
+
+    static void forget(String signature) {
+        SEEN_SIGNATURES.remove(signature);
+    }
+
+    /**
+     * 回调由 MeterSphere 服务器发起，没有 crumb，用签名代替 CSRF 校验
+     */
+    @Extension
+    public static class CallbackCrumbExclusion extends CrumbExclusion {
+
+        @Override
+        public boolean process(HttpServletRequest req, HttpServletResponse resp, FilterChain chain)
+                throws IOException, ServletException {
+            String pathInfo = req.getPathInfo();
+            if (pathInfo != null && pathInfo.startsWith("/" + URL_NAME + "/")) {
+                chain.doFilter(req, resp);
+                return true;
+            }
+            return false;
+        }
+    }
+}
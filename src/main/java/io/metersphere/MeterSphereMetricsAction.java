@@ -0,0 +1,147 @@
+package io.metersphere;
+
+import hudson.Extension;
+import hudson.model.RootAction;
+import io.metersphere.client.CatalogExecutor;
+import io.metersphere.client.ClientMetrics;
+import io.metersphere.client.RunStatusScheduler;
+import io.metersphere.commons.utils.HttpClientUtil;
+import io.metersphere.commons.utils.LatencyHistogram;
+import jenkins.model.Jenkins;
+import org.apache.http.pool.PoolStats;
+import org.kohsuke.stapler.StaplerRequest;
+import org.kohsuke.stapler.StaplerResponse;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.List;
+import java.util.Map;
+import java.util.function.ToIntFunction;
+import java.util.function.ToLongFunction;
+
+/**
+ * 以 Prometheus 文本格式输出 MeterSphere 接口调用的统计，地址为 ${JENKINS_URL}/metersphere-metrics/。
+ * 统计中包含 MeterSphere 服务器地址，只允许管理员查看，抓取时使用管理员的 API Token。
+ */
+@Extension
+public class MeterSphereMetricsAction implements RootAction {
+
+    public static final String URL_NAME = "metersphere-metrics";
+
+    private static final double[] QUANTILES = {0.5, 0.9, 0.99, 0.999};
+
+    @Override
+    public String getIconFileName() {
+        return null;
+    }
+
+    @Override
+    public String getDisplayName() {
+        return null;
+    }
+
+    @Override
+    public String getUrlName() {
+        return URL_NAME;
+    }
+
+    public void doIndex(StaplerRequest req, StaplerResponse rsp) throws IOException {
+        Jenkins.getActiveInstance().checkPermission(Jenkins.ADMINISTER);
+        rsp.setContentType("text/plain; version=0.0.4; charset=utf-8");
+        PrintWriter out = rsp.getWriter();
+        writeEndpoints(out, ClientMetrics.getEndpoints());
+        writePools(out, HttpClientUtil.getPoolStats(true), HttpClientUtil.getPoolStats(false));
+        writeCatalogExecutor(out);
+        header(out, "metersphere_tracked_runs", "gauge", "轮询中的执行数");
+        out.println("metersphere_tracked_runs " + RunStatusScheduler.getTrackedCount());
+        out.flush();
+    }
+
+    private static void writeEndpoints(PrintWriter out, List<ClientMetrics.Endpoint> endpoints) {
+        header(out, "metersphere_client_in_flight", "gauge", "进行中的请求数");
+        out.println("metersphere_client_in_flight " + ClientMetrics.getInFlight());
+        counter(out, endpoints, "metersphere_client_requests_total", "已结束的请求数", ClientMetrics.Endpoint::getRequests);
+        counter(out, endpoints, "metersphere_client_errors_total", "失败的请求数", ClientMetrics.Endpoint::getErrors);
+        counter(out, endpoints, "metersphere_client_cancelled_total", "被取消的请求数", ClientMetrics.Endpoint::getCancelled);
+        header(out, "metersphere_client_endpoint_in_flight", "gauge", "各接口进行中的请求数");
+        for (ClientMetrics.Endpoint endpoint : endpoints) {
+            out.println("metersphere_client_endpoint_in_flight" + labels("endpoint", endpoint.getName()) + " " + endpoint.getInFlight());
+        }
+        header(out, "metersphere_client_latency_seconds", "summary", "请求耗时");
+        for (ClientMetrics.Endpoint endpoint : endpoints) {
+            LatencyHistogram.Snapshot latency = endpoint.getLatency();
+            String name = escape(endpoint.getName());
+            for (double quantile : QUANTILES) {
+                out.println("metersphere_client_latency_seconds{endpoint=\"" + name + "\",quantile=\"" + quantile + "\"} "
+                        + seconds(latency.getValueAtQuantile(quantile)));
+            }
+            out.println("metersphere_client_latency_seconds_sum{endpoint=\"" + name + "\"} " + seconds(latency.getSum()));
+            out.println("metersphere_client_latency_seconds_count{endpoint=\"" + name + "\"} " + latency.getCount());
+        }
+        header(out, "metersphere_client_latency_max_seconds", "gauge", "请求耗时的最大值");
+        for (ClientMetrics.Endpoint endpoint : endpoints) {
+            out.println("metersphere_client_latency_max_seconds" + labels("endpoint", endpoint.getName()) + " "
+                    + seconds(endpoint.getLatency().getMax()));
+        }
+    }
+
+    private static void writePools(PrintWriter out, Map<String, PoolStats> async, Map<String, PoolStats> sync) {
+        pool(out, async, sync, "leased", "已占用的连接数", PoolStats::getLeased);
+        pool(out, async, sync, "available", "空闲的连接数", PoolStats::getAvailable);
+        pool(out, async, sync, "pending", "等待连接的请求数", PoolStats::getPending);
+        pool(out, async, sync, "max", "连接数上限", PoolStats::getMax);
+    }
+
+    private static void writeCatalogExecutor(PrintWriter out) {
+        header(out, "metersphere_catalog_queue_depth", "gauge", "排队中的查询任务数");
+        out.println("metersphere_catalog_queue_depth " + CatalogExecutor.getQueueDepth());
+        header(out, "metersphere_catalog_active", "gauge", "正在执行的查询任务数");
+        out.println("metersphere_catalog_active " + CatalogExecutor.getActiveCount());
+        header(out, "metersphere_catalog_completed_total", "counter", "已完成的查询任务数");
+        out.println("metersphere_catalog_completed_total " + CatalogExecutor.getCompletedCount());
+        header(out, "metersphere_catalog_rejected_total", "counter", "队列已满被拒绝的查询任务数");
+        out.println("metersphere_catalog_rejected_total " + CatalogExecutor.getRejectedCount());
+        header(out, "metersphere_catalog_timed_out_total", "counter", "超时的查询任务数");
+        out.println("metersphere_catalog_timed_out_total " + CatalogExecutor.getTimedOutCount());
+        header(out, "metersphere_catalog_failed_total", "counter", "失败的查询任务数");
+        out.println("metersphere_catalog_failed_total " + CatalogExecutor.getFailedCount());
+    }
+
+    private static void counter(PrintWriter out, List<ClientMetrics.Endpoint> endpoints, String metric, String help,
+                                ToLongFunction<ClientMetrics.Endpoint> value) {
+        header(out, metric, "counter", help);
+        for (ClientMetrics.Endpoint endpoint : endpoints) {
+            out.println(metric + labels("endpoint", endpoint.getName()) + " " + value.applyAsLong(endpoint));
+        }
+    }
+
+    /**
+     * 同一指标的数据需要连续输出，异步和同步连接池用 mode 标签区分
+     */
+    private static void pool(PrintWriter out, Map<String, PoolStats> async, Map<String, PoolStats> sync, String name,
+                             String help, ToIntFunction<PoolStats> value) {
+        String metric = "metersphere_http_pool_" + name;
+        header(out, metric, "gauge", help);
+        async.forEach((route, stats) -> out.println(metric + "{mode=\"async\",route=\"" + escape(route) + "\"} "
+                + value.applyAsInt(stats)));
+        sync.forEach((route, stats) -> out.println(metric + "{mode=\"sync\",route=\"" + escape(route) + "\"} "
+                + value.applyAsInt(stats)));
+    }
+
+    private static void header(PrintWriter out, String metric, String type, String help) {
+        out.println("# HELP " + metric + " " + help);
+        out.println("# TYPE " + metric + " " + type);
+    }
+
+    private static String labels(String name, String value) {
+        return "{" + name + "=\"" + escape(value) + "\"}";
+    }
+
+    private static String escape(String value) {
+        return value.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+    }
+
+    private static double seconds(long micros) {
+        return micros / 1000000.0;
+    }
+}
@@ -0,0 +1,415 @@
+package io.metersphere;
+
+import hudson.AbortException;
+import hudson.EnvVars;
+import hudson.Extension;
+import hudson.Util;
+import hudson.model.Computer;
+import hudson.model.Result;
+import hudson.model.Run;
+import hudson.model.TaskListener;
+import hudson.util.Secret;
+import io.metersphere.client.MeterSphereClient;
+import io.metersphere.client.RunHandle;
+import io.metersphere.client.RunJournal;
+import io.metersphere.commons.constants.Method;
+import io.metersphere.commons.exception.RunTimeoutException;
+import io.metersphere.commons.model.TestCaseDTO;
+import io.metersphere.commons.model.TestPlanDTO;
+import io.metersphere.commons.utils.ExecutionContext;
+import io.metersphere.commons.utils.MeterSphereUtils;
+import org.apache.commons.lang.StringUtils;
+import org.jenkinsci.plugins.workflow.steps.Step;
+import org.jenkinsci.plugins.workflow.steps.StepContext;
+import org.jenkinsci.plugins.workflow.steps.StepDescriptor;
+import org.jenkinsci.plugins.workflow.steps.StepExecution;
+import org.kohsuke.stapler.DataBoundConstructor;
+import org.kohsuke.stapler.DataBoundSetter;
+
+import java.io.Serializable;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Pipeline 中的异步执行步骤。
+ * 提交测试后立即释放执行器，由全局轮询调度器跟踪执行状态，结束后恢复流水线，返回是否执行成功。
+ */
+public class MeterSphereStep extends Step implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+    private static final String LOG_PREFIX = "[MeterSphere] ";
+
+    private final String msEndpoint;
+    private final String msAccessKey;
+    private final Secret msSecretKey;
+
+    private String workspaceId;
+    private String projectId;
+    private String projectType;
+    private String projectName;
+    private String testPlanId;
+    private String testPlanName;
+    private String testCaseId;
+    private String testCaseName;
+    private String method = Method.TEST_PLAN;
+    private String mode = "serial"; //运行模式
+    private String openMode = "auth"; //报告打开方式
+    private String resourcePoolId; //运行环境
+    private Integer timeoutMinutes; //最长等待时间，单位分钟
+
+    @DataBoundConstructor
+    public MeterSphereStep(String msEndpoint, String msAccessKey, Secret msSecretKey) {
+        this.msEndpoint = msEndpoint;
+        this.msAccessKey = msAccessKey;
+        this.msSecretKey = msSecretKey;
+    }
+
+    @Override
+    public StepExecution start(StepContext context) {
+        return new Execution(this, context);
+    }
+
+    MeterSphereClient createClient() {
+        return new MeterSphereClient(msAccessKey, Secret.toString(msSecretKey), msEndpoint);
+    }
+
+    /**
+     * 解析项目、测试计划或测试并提交执行
+     *
+     * @return 提交的执行，测试类型不支持时为null
+     */
+    RunHandle submit(ExecutionContext context, EnvVars environment) throws AbortException {
+        MeterSphereClient client = context.getClient();
+        // 找到实际的project
+        String realProjectId = this.projectId;
+        if (StringUtils.equals(projectType, "projectName")) {
+            String name = Util.replaceMacro(this.projectName, environment);
+            if (StringUtils.isNotBlank(name)) {
+                realProjectId = MeterSphereUtils.resolveProjectId(client, workspaceId, name);
+            }
+        }
+        switch (method) {
+            case Method.TEST_PLAN:
+                return MeterSphereUtils.startTestPlan(context, realProjectId, mode, testPlanId, resourcePoolId);
+            case Method.TEST_PLAN_NAME:
+                String planName = Util.replaceMacro(this.testPlanName, environment);
+                TestPlanDTO testPlan = MeterSphereUtils.findTestPlan(client, realProjectId, workspaceId, planName);
+                if (testPlan == null) {
+                    throw new AbortException(LOG_PREFIX + "测试计划不存在");
+                }
+                return MeterSphereUtils.startTestPlan(context, realProjectId, mode, testPlan.getId(), resourcePoolId);
+            case Method.SINGLE:
+            case Method.SINGLE_NAME:
+                String caseNameOrId = StringUtils.equals(method, Method.SINGLE) ? testCaseId : Util.replaceMacro(this.testCaseName, environment);
+                TestCaseDTO testCase = MeterSphereUtils.findTestCase(client, realProjectId, caseNameOrId, StringUtils.equals(method, Method.SINGLE_NAME));
+                if (testCase == null) {
+                    throw new AbortException(LOG_PREFIX + "测试不存在");
+                }
+                context.log("测试ID: " + testCase.getId());
+                context.log("测试名称: " + MeterSphereUtils.getDisplayName(testCase));
+                return MeterSphereUtils.startTestCase(context, realProjectId, testCase, testPlanId, resourcePoolId);
+            default:
+                throw new AbortException(LOG_PREFIX + "测试用例不存在");
+        }
+    }
+
+    public static class Execution extends StepExecution {
+
+        private static final long serialVersionUID = 1L;
+
+        private final MeterSphereStep step;
+        // 提交成功后记录，Jenkins 重启后据此恢复跟踪
+        private volatile RunHandle handle;
+        // 提交完成的时间，Jenkins 重启后按剩余的等待时长继续等待
+        private volatile long submittedAt;
+        private volatile String openMode;
+        private volatile boolean stopped;
+        private transient volatile CompletableFuture<String> result;
+
+        Execution(MeterSphereStep step, StepContext context) {
+            super(context);
+            this.step = step;
+            this.openMode = step.openMode;
+        }
+
+        @Override
+        public boolean start() throws Exception {
+            Run<?, ?> run = getContext().get(Run.class);
+            TaskListener listener = getContext().get(TaskListener.class);
+            // 解析和提交是同步请求，放到后台线程，不阻塞流水线线程
+            Computer.threadPoolForRemoting.submit(() -> {
+                try {
+                    MeterSphereClient client = step.createClient();
+                    ExecutionContext context = context(run, listener, client);
+                    context.log("执行方式: " + step.method);
+                    // License 和会话信息与查找、提交同时查询；与自由风格任务一致，License 查询失败时步骤失败
+                    CompletableFuture<Boolean> license = client.checkLicenseAsync();
+                    MeterSphereUtils.prefetchSession(client);
+                    RunHandle submitted = step.submit(context, run.getEnvironment(listener));
+                    if (!MeterSphereUtils.await(license)) {
+                        openMode = "auth";
+                        context.setOpenMode(openMode);
+                    }
+                    if (submitted == null) {
+                        getContext().onSuccess(true);
+                        return;
+                    }
+                    boolean stoppedBeforeSubmit;
+                    synchronized (this) {
+                        handle = submitted;
+                        submittedAt = System.currentTimeMillis();
+                        stoppedBeforeSubmit = stopped;
+                    }
+                    if (stoppedBeforeSubmit) {
+                        // stop() 在提交完成前执行时没有可停止的执行，由这里停止远程执行并结束登记
+                        context.log("构建已中止");
+                        MeterSphereUtils.stopRemote(context, submitted);
+                        return;
+                    }
+                    track(context);
+                } catch (Throwable e) {
+                    getContext().onFailure(e);
+                }
+            });
+            return false;
+        }
+
+        @Override
+        public void stop(Throwable cause) throws Exception {
+            RunHandle submitted;
+            synchronized (this) {
+                stopped = true;
+                submitted = handle;
+            }
+            CompletableFuture<String> current = result;
+            if (current != null) {
+                current.cancel(false);
+            }
+            if (submitted != null) {
+                ExecutionContext context = context(getContext().get(Run.class), getContext().get(TaskListener.class), step.createClient());
+                context.log("构建已中止");
+                Computer.threadPoolForRemoting.submit(() -> MeterSphereUtils.stopRemote(context, submitted));
+            }
+            getContext().onFailure(cause);
+        }
+
+        @Override
+        public void onResume() {
+            try {
+                if (handle == null) {
+                    getContext().onFailure(new AbortException(LOG_PREFIX + "Jenkins 重启时测试尚未提交完成"));
+                    return;
+                }
+                MeterSphereClient client = step.createClient();
+                Run<?, ?> run = getContext().get(Run.class);
+                RunJournal.resumed(run, client, handle);
+                track(context(run, getContext().get(TaskListener.class), client));
+            } catch (Exception e) {
+                getContext().onFailure(e);
+            }
+        }
+
+        /**
+         * 执行上下文不随步骤保存，Jenkins 重启后按保存的报告打开方式重新创建
+         */
+        private ExecutionContext context(Run<?, ?> run, TaskListener listener, MeterSphereClient client) {
+            return new ExecutionContext(listener.getLogger(), client, run, openMode, step.timeoutMinutes);
+        }
+
+        private void track(ExecutionContext context) {
+            RunHandle current = handle;
+            // 旧版本保存的步骤没有提交时间，从恢复时开始计算
+            long startedAt = submittedAt > 0 ? submittedAt : System.currentTimeMillis();
+            CompletableFuture<String> tracked = MeterSphereUtils.track(context, current, startedAt);
+            result = tracked;
+            if (stopped) {
+                // stop() 已停止远程执行，只是没有看到这里的等待
+                tracked.cancel(false);
+                return;
+            }
+            // 结束后的处理会发起同步请求，不能在网络IO线程中执行
+            tracked.whenCompleteAsync((status, e) -> {
+                if (tracked.isCancelled()) {
+                    return;
+                }
+                try {
+                    if (e != null) {
+                        if (e instanceof RunTimeoutException) {
+                            context.log(e.getMessage());
+                            MeterSphereUtils.stopRemote(context, current);
+                        }
+                        getContext().onFailure(e);
+                        return;
+                    }
+                    boolean success = MeterSphereUtils.finish(context, current, status);
+                    if (success) {
+                        context.log("该测试请求通过，登陆MeterSphere网站查看该报告结果");
+                    } else {
+                        context.log("该测试请求未能通过，登陆MeterSphere网站查看该报告结果");
+                        context.getRun().setResult(Result.FAILURE);
+                    }
+                    getContext().onSuccess(success);
+                } catch (Exception ex) {
+                    getContext().onFailure(ex);
+                }
+            }, Computer.threadPoolForRemoting);
+        }
+
+        @Override
+        public String getStatus() {
+            RunHandle current = handle;
+            return current == null ? "提交中" : "等待执行结束: " + current.getPollId();
+        }
+    }
+
+    @Extension(optional = true)
+    public static class DescriptorImpl extends StepDescriptor {
+
+        @Override
+        public Set<? extends Class<?>> getRequiredContext() {
+            return Collections.unmodifiableSet(new HashSet<>(Arrays.asList(Run.class, TaskListener.class)));
+        }
+
+        @Override
+        public String getFunctionName() {
+            return "meterSphereRun";
+        }
+
+        @Override
+        public String getDisplayName() {
+            return "MeterSphere（异步执行，不占用执行器）";
+        }
+    }
+
+    @DataBoundSetter
+    public void setWorkspaceId(String workspaceId) {
+        this.workspaceId = workspaceId;
+    }
+
+    @DataBoundSetter
+    public void setProjectId(String projectId) {
+        this.projectId = projectId;
+    }
+
+    @DataBoundSetter
+    public void setProjectType(String projectType) {
+        this.projectType = projectType;
+    }
+
+    @DataBoundSetter
+    public void setProjectName(String projectName) {
+        this.projectName = projectName;
+    }
+
+    @DataBoundSetter
+    public void setTestPlanId(String testPlanId) {
+        this.testPlanId = testPlanId;
+    }
+
+    @DataBoundSetter
+    public void setTestPlanName(String testPlanName) {
+        this.testPlanName = testPlanName;
+    }
+
+    @DataBoundSetter
+    public void setTestCaseId(String testCaseId) {
+        this.testCaseId = testCaseId;
+    }
+
+    @DataBoundSetter
+    public void setTestCaseName(String testCaseName) {
+        this.testCaseName = testCaseName;
+    }
+
+    @DataBoundSetter
+    public void setResourcePoolId(String resourcePoolId) {
+        this.resourcePoolId = resourcePoolId;
+    }
+
+    @DataBoundSetter
+    public void setTimeoutMinutes(Integer timeoutMinutes) {
+        this.timeoutMinutes = timeoutMinutes;
+    }
+
+    @DataBoundSetter
+    public void setMethod(String method) {
+        this.method = StringUtils.isBlank(method) ? Method.TEST_PLAN : method;
+    }
+
+    @DataBoundSetter
+    public void setMode(String mode) {
+        this.mode = StringUtils.isBlank(mode) ? "serial" : mode;
+    }
+
+    @DataBoundSetter
+    public void setOpenMode(String openMode) {
+        this.openMode = StringUtils.isBlank(openMode) ? "auth" : openMode;
+    }
+
+    public String getMsEndpoint() {
+        return msEndpoint;
+    }
+
+    public String getMsAccessKey() {
+        return msAccessKey;
+    }
+
+    public Secret getMsSecretKey() {
+        return msSecretKey;
+    }
+
+    public String getWorkspaceId() {
+        return workspaceId;
+    }
+
+    public String getProjectId() {
+        return projectId;
+    }
+
+    public String getProjectType() {
+        return projectType;
+    }
+
+    public String getProjectName() {
+        return projectName;
+    }
+
+    public String getTestPlanId() {
+        return testPlanId;
+    }
+
+    public String getTestPlanName() {
+        return testPlanName;
+    }
+
+    public String getTestCaseId() {
+        return testCaseId;
+    }
+
+    public String getTestCaseName() {
+        return testCaseName;
+    }
+
+    public String getMethod() {
+        return method;
+    }
+
+    public String getMode() {
+        return mode;
+    }
+
+    public String getOpenMode() {
+        return openMode;
+    }
+
+    public String getResourcePoolId() {
+        return resourcePoolId;
+    }
+
+    public Integer getTimeoutMinutes() {
+        return timeoutMinutes;
+    }
+}
@@ -3,12 +3,17 @@ package io.metersphere;
 import org.apache.commons.lang.builder.ReflectionToStringBuilder;
 import org.apache.commons.lang.builder.ToStringStyle;
 
-public class ResultHolder {
+/**
+ * MeterSphere 接口统一返回结构
+ *
+ * @param <T> data 的类型，按目标类型一次性解码，无需再次序列化转换
+ */
+public class ResultHolder<T> {
     public ResultHolder() {
         this.success = true;
     }
 
-    private ResultHolder(Object data) {
+    private ResultHolder(T data) {
         this.data = data;
         this.success = true;
     }
@@ -18,7 +23,7 @@ public class ResultHolder {
         this.message = msg;
     }
 
-    private ResultHolder(boolean success, String msg, Object data) {
+    private ResultHolder(boolean success, String msg, T data) {
         this.success = success;
         this.message = msg;
         this.data = data;
@@ -29,7 +34,7 @@ public class ResultHolder {
     // 描述信息
     private String message;
     // 返回数据
-    private Object data = "";
+    private T data;
 
     public boolean isSuccess() {
         return this.success;
@@ -47,24 +52,24 @@ public class ResultHolder {
         this.message = message;
     }
 
-    public Object getData() {
+    public T getData() {
         return data;
     }
 
-    public void setData(Object data) {
+    public void setData(T data) {
         this.data = data;
     }
 
-    public static ResultHolder success(Object obj) {
-        return new ResultHolder(obj);
+    public static <T> ResultHolder<T> success(T obj) {
+        return new ResultHolder<>(obj);
     }
 
-    public static ResultHolder error(String message) {
-        return new ResultHolder(false, message, null);
+    public static <T> ResultHolder<T> error(String message) {
+        return new ResultHolder<>(false, message, null);
     }
 
-    public static ResultHolder error(String message, Object object) {
-        return new ResultHolder(false, message, object);
+    public static <T> ResultHolder<T> error(String message, T object) {
+        return new ResultHolder<>(false, message, object);
     }
 
     public String toString() {
@@ -0,0 +1,329 @@
+package io.metersphere.client;
+
+import hudson.init.Terminator;
+import io.metersphere.commons.exception.MeterSphereException;
+import io.metersphere.commons.model.CompactTestCaseList;
+import io.metersphere.commons.model.TestCaseDTO;
+import io.metersphere.commons.utils.LogUtil;
+import io.metersphere.commons.utils.SearchIndex;
+import org.apache.commons.codec.digest.DigestUtils;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * 配置页下拉框使用的工作空间、项目、测试计划、测试等列表的缓存。
+ * 按账号（endpoint、accessKey、secretKey摘要）和查询范围缓存，数量和时间都有上限；
+ * 超过刷新时间后先返回旧数据并在后台刷新，超过过期时间后重新加载。缓存的列表不可修改，
+ * 由列表构建的搜索索引、查找索引随列表一起缓存。测试和测试计划列表另外在本地保存副本，见 CatalogStore。
+ * 后台刷新得到的测试计划列表版本不变时，沿用原有的列表和索引，不重新构建。
+ * 构建时按名称查找使用 {@link #deriveFresh}，不使用本地副本和超过 {@link #RESOLVE_MAX_AGE_MILLIS} 的列表。
+ */
+public class CatalogCache {
+
+    // 过期时间，单位毫秒
+    private static final long TTL_MILLIS = Long.getLong("io.metersphere.catalog.ttlMillis", 10 * 60 * 1000L);
+    // 后台刷新时间，单位毫秒
+    private static final long REFRESH_AFTER_MILLIS = Long.getLong("io.metersphere.catalog.refreshAfterMillis", 60 * 1000L);
+    // 构建时查找允许使用的列表的最长时间，单位毫秒
+    private static final long RESOLVE_MAX_AGE_MILLIS = Long.getLong("io.metersphere.catalog.resolveMaxAgeMillis", REFRESH_AFTER_MILLIS);
+    // 最多缓存的列表数
+    private static final int MAX_ENTRIES = Integer.getInteger("io.metersphere.catalog.maxEntries", 500);
+
+    private static final String TEST_CASES = "testCases|";
+    // 自动补全使用的搜索索引
+    private static final String SEARCH_INDEX = "search";
+
+    // 按最近访问顺序排列，超过上限时淘汰最久未访问的
+    private static final Map<String, CachedList> CACHE = new LinkedHashMap<String, CachedList>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, CachedList> eldest) {
+            return size() > MAX_ENTRIES;
+        }
+    };
+
+    private static final ExecutorService REFRESHER = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "MeterSphere-catalog-refresh");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public static String projectsScope(String workspaceId) {
+        return "projects|" + workspaceId;
+    }
+
+    public static String testPlansScope(String projectId, String workspaceId) {
+        return "testPlans|" + projectId + "|" + workspaceId;
+    }
+
+    public static String testCasesScope(String projectId) {
+        return TEST_CASES + projectId;
+    }
+
+    /**
+     * 读取缓存的列表，没有或已过期时同步加载，同一时刻的并发请求只加载一次
+     *
+     * @param scope  查询范围，如 projects|工作空间ID
+     * @param loader 加载方法
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> List<T> get(MeterSphereClient client, String scope, Supplier<List<T>> loader) {
+        return (List<T>) join(lookup(client, scope, loader, false));
+    }
+
+    /**
+     * 读取缓存的列表对应的搜索索引，每次加载的列表只构建一次
+     *
+     * @param builder 由列表构建索引的方法，之后列表刷新时也用它重新构建，见 {@link #peekIndex(String)}
+     */
+    public static <T> SearchIndex<T> index(MeterSphereClient client, String scope, Supplier<List<T>> loader,
+                                           Function<List<T>, SearchIndex<T>> builder) {
+        return derive(client, scope, loader, SEARCH_INDEX, builder);
+    }
+
+    /**
+     * 缓存中的列表的标识，可以保存在会话中，之后用 {@link #peekIndex(String)} 读取，不持有列表和账号
+     */
+    public static String key(MeterSphereClient client, String scope) {
+        return credentialKey(client) + "|" + scope;
+    }
+
+    /**
+     * 读取缓存中的列表的搜索索引，不加载列表。列表不在缓存中、已过期或从未通过 index 构建过索引时为null
+     */
+    public static SearchIndex<?> peekIndex(String key) {
+        CachedList entry;
+        synchronized (CACHE) {
+            entry = CACHE.get(key);
+        }
+        if (entry == null || !entry.value.isDone() || entry.value.isCompletedExceptionally()
+                || System.currentTimeMillis() - entry.loadedAt > TTL_MILLIS) {
+            return null;
+        }
+        Function<List<?>, ?> builder = entry.builders.get(SEARCH_INDEX);
+        if (builder == null) {
+            return null;
+        }
+        return (SearchIndex<?>) entry.derived.computeIfAbsent(SEARCH_INDEX,
+                k -> builder.apply((List<?>) entry.value.join()));
+    }
+
+    /**
+     * 读取由缓存的列表计算出的数据，如索引，随列表一起刷新和过期，每次加载的列表只计算一次
+     *
+     * @param kind    计算结果的类别，同一范围的列表可以有多种计算结果
+     * @param builder 计算方法
+     */
+    public static <T, R> R derive(MeterSphereClient client, String scope, Supplier<List<T>> loader, String kind,
+                                  Function<List<T>, R> builder) {
+        return derive(lookup(client, scope, loader, false), kind, builder);
+    }
+
+    /**
+     * 同 {@link #derive}，用于构建时解析名称：列表来自本地副本，或加载时间超过 {@link #RESOLVE_MAX_AGE_MILLIS} 时
+     * 同步重新加载，不会按过时的名称执行到其他测试
+     */
+    public static <T, R> R deriveFresh(MeterSphereClient client, String scope, Supplier<List<T>> loader, String kind,
+                                       Function<List<T>, R> builder) {
+        return derive(lookup(client, scope, loader, true), kind, builder);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T, R> R derive(CachedList entry, String kind, Function<List<T>, R> builder) {
+        List<T> list = (List<T>) join(entry);
+        entry.builders.putIfAbsent(kind, (Function<List<?>, ?>) (Function<?, ?>) builder);
+        return (R) entry.derived.computeIfAbsent(kind, k -> builder.apply(list));
+    }
+
+    /**
+     * @param fresh 是否只接受 {@link #RESOLVE_MAX_AGE_MILLIS} 内从服务器加载的列表
+     */
+    @SuppressWarnings("unchecked")
+    private static <T> CachedList lookup(MeterSphereClient client, String scope, Supplier<List<T>> loader, boolean fresh) {
+        String credentialKey = credentialKey(client);
+        String key = credentialKey + "|" + scope;
+        long now = System.currentTimeMillis();
+        CachedList entry;
+        boolean load = false;
+        synchronized (CACHE) {
+            entry = CACHE.get(key);
+            if (entry == null || now - entry.loadedAt > TTL_MILLIS || entry.value.isCompletedExceptionally()
+                    || fresh && entry.value.isDone() && (entry.fromStore || now - entry.loadedAt > RESOLVE_MAX_AGE_MILLIS)) {
+                entry = new CachedList(now);
+                CACHE.put(key, entry);
+                load = true;
+            }
+        }
+        if (load) {
+            List<T> stored = !fresh && CatalogStore.isPersistent(scope) ? (List<T>) CatalogStore.read(credentialKey, scope) : null;
+            if (stored != null) {
+                // 启动后第一次使用，先返回本地副本，同时在后台重新查询
+                entry.fromStore = true;
+                entry.version = CatalogStore.version(scope, stored);
+                entry.value.complete(immutable(scope, stored));
+                entry.refreshing.set(true);
+                refresh(credentialKey, scope, entry, loader);
+                return entry;
+            }
+            try {
+                List<T> loaded = loader.get();
+                entry.version = CatalogStore.version(scope, loaded);
+                List<T> list = immutable(scope, loaded);
+                entry.value.complete(list);
+                store(credentialKey, scope, list);
+            } catch (RuntimeException e) {
+                entry.value.completeExceptionally(e);
+                remove(key, entry);
+                throw e;
+            }
+        } else if (entry.value.isDone() && now - entry.loadedAt > REFRESH_AFTER_MILLIS
+                && entry.refreshing.compareAndSet(false, true)) {
+            refresh(credentialKey, scope, entry, loader);
+        }
+        return entry;
+    }
+
+    private static Object join(CachedList entry) {
+        try {
+            return entry.value.join();
+        } catch (CompletionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new MeterSphereException(cause);
+        }
+    }
+
+    /**
+     * 丢弃该账号下所有缓存的列表
+     */
+    public static void invalidate(MeterSphereClient client) {
+        String credentialKey = credentialKey(client);
+        String prefix = credentialKey + "|";
+        synchronized (CACHE) {
+            CACHE.keySet().removeIf(key -> key.startsWith(prefix));
+        }
+        REFRESHER.execute(() -> CatalogStore.delete(credentialKey));
+    }
+
+    /**
+     * 丢弃该账号下指定范围的列表，如按名称找不到时列表可能已过时
+     */
+    public static void invalidate(MeterSphereClient client, String scope) {
+        String key = credentialKey(client) + "|" + scope;
+        synchronized (CACHE) {
+            CACHE.remove(key);
+        }
+    }
+
+    private static <T> void refresh(String credentialKey, String scope, CachedList stale, Supplier<List<T>> loader) {
+        String key = credentialKey + "|" + scope;
+        REFRESHER.execute(() -> {
+            try {
+                CachedList fresh = new CachedList(System.currentTimeMillis());
+                List<T> loaded = loader.get();
+                fresh.version = CatalogStore.version(scope, loaded);
+                boolean unchanged = fresh.version != null && fresh.version.equals(stale.version);
+                if (unchanged) {
+                    // 列表未变化，沿用原有的列表和已构建的索引，本地副本也不需要重写
+                    fresh.value.complete(stale.value.join());
+                    fresh.derived.putAll(stale.derived);
+                    fresh.builders.putAll(stale.builders);
+                } else {
+                    fresh.value.complete(immutable(scope, loaded));
+                    // 新列表的索引在首次使用时重新构建
+                    fresh.builders.putAll(stale.builders);
+                }
+                synchronized (CACHE) {
+                    // 刷新期间被清除或替换的不再写回
+                    if (CACHE.get(key) == stale) {
+                        CACHE.put(key, fresh);
+                    }
+                }
+                if (!unchanged) {
+                    CatalogStore.write(credentialKey, scope, (List<?>) fresh.value.join());
+                }
+            } catch (Exception e) {
+                LogUtil.warn("后台刷新列表失败: " + key, e);
+                stale.refreshing.set(false);
+            }
+        });
+    }
+
+    /**
+     * 在后台线程保存本地副本，不阻塞调用方
+     */
+    private static void store(String credentialKey, String scope, List<?> list) {
+        if (CatalogStore.isPersistent(scope)) {
+            REFRESHER.execute(() -> CatalogStore.write(credentialKey, scope, list));
+        }
+    }
+
+    private static void remove(String key, CachedList entry) {
+        synchronized (CACHE) {
+            if (CACHE.get(key) == entry) {
+                CACHE.remove(key);
+            }
+        }
+    }
+
+    /**
+     * 测试列表转为按列保存的形式，减少长期缓存占用的内存；按列保存的列表本身只读，不再包装，
+     * 索引可以直接按列读取
+     */
+    @SuppressWarnings("unchecked")
+    private static <T> List<T> immutable(String scope, List<T> list) {
+        if (list == null) {
+            return Collections.emptyList();
+        }
+        if (scope.startsWith(TEST_CASES)) {
+            return (List<T>) CompactTestCaseList.of((List<TestCaseDTO>) list);
+        }
+        return Collections.unmodifiableList(list);
+    }
+
+    /**
+     * 同一 accessKey 使用不同 secretKey 时不共享缓存
+     */
+    private static String credentialKey(MeterSphereClient client) {
+        return client.getEndpoint() + "|" + client.getAccessKey() + "|" + DigestUtils.sha256Hex(String.valueOf(client.getSecretKey()));
+    }
+
+    @Terminator
+    public static void shutdown() {
+        REFRESHER.shutdownNow();
+        synchronized (CACHE) {
+            CACHE.clear();
+        }
+    }
+
+    private static class CachedList {
+        private final long loadedAt;
+        private final CompletableFuture<Object> value = new CompletableFuture<>();
+        private final AtomicBoolean refreshing = new AtomicBoolean();
+        // 由列表计算出的索引等数据，首次使用时计算
+        private final ConcurrentMap<String, Object> derived = new ConcurrentHashMap<>();
+        // 计算方法，列表刷新后沿用
+        private final ConcurrentMap<String, Function<List<?>, ?>> builders = new ConcurrentHashMap<>();
+        // 列表版本，见 CatalogStore.version，无法判断时为null
+        private volatile String version;
+        // 列表是否来自本地副本，后台刷新后替换为新的条目
+        private volatile boolean fromStore;
+
+        CachedList(long loadedAt) {
+            this.loadedAt = loadedAt;
+        }
+    }
+}
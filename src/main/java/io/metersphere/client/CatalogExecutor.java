@@ -0,0 +1,157 @@
+package io.metersphere.client;
+
+import hudson.init.Terminator;
+import io.metersphere.commons.exception.MeterSphereException;
+import io.metersphere.commons.utils.HttpClientUtil;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * 查询测试列表等同步请求使用的线程池。
+ * 线程数和排队数有上限，队列满时提交方等待空位，等待超时才报错；每个任务有超时时间，
+ * 超时或被取消后中止任务中正在进行的 HTTP 请求并以 TimeoutException 结束，不必等到读超时才释放线程。
+ * 任务的异常原样传给调用方。Jenkins 停止时关闭。
+ * 提交方会被阻塞，只能在构建线程、页面请求等同步线程上提交，不能在 I/O reactor 或本线程池中提交。
+ */
+public class CatalogExecutor {
+
+    // 线程数
+    private static final int THREADS = Integer.getInteger("io.metersphere.catalog.threads", 5);
+    // 最多排队的任务数
+    private static final int QUEUE_SIZE = Integer.getInteger("io.metersphere.catalog.queueSize", 100);
+    // 队列满时提交方最多等待的时间，单位秒
+    private static final long SUBMIT_WAIT_SECONDS = Long.getLong("io.metersphere.catalog.submitWaitSeconds", 60L);
+    // 单个任务的超时时间，单位秒
+    private static final long TASK_TIMEOUT_SECONDS = Long.getLong("io.metersphere.catalog.taskTimeoutSeconds", 120L);
+
+    private static final AtomicInteger THREAD_NUMBER = new AtomicInteger();
+    private static final AtomicLong REJECTED = new AtomicLong();
+    private static final AtomicLong TIMED_OUT = new AtomicLong();
+    private static final AtomicLong FAILED = new AtomicLong();
+
+    private static final ThreadPoolExecutor EXECUTOR = new ThreadPoolExecutor(THREADS, THREADS,
+            60L, TimeUnit.SECONDS, new ArrayBlockingQueue<>(QUEUE_SIZE), runnable -> {
+        Thread thread = new Thread(runnable, "MeterSphere-catalog-" + THREAD_NUMBER.incrementAndGet());
+        thread.setDaemon(true);
+        return thread;
+    }, CatalogExecutor::waitForSpace);
+
+    // 超时检查
+    private static final ScheduledExecutorService WATCHDOG = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "MeterSphere-catalog-watchdog");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    static {
+        EXECUTOR.allowCoreThreadTimeOut(true);
+    }
+
+    /**
+     * 提交任务，超时时间从提交时开始计算，包含排队时间
+     */
+    public static <T> CompletableFuture<T> submit(String name, Supplier<T> task) {
+        CompletableFuture<T> result = new CompletableFuture<>();
+        HttpClientUtil.Abortable requests = new HttpClientUtil.Abortable();
+        Future<?> running;
+        try {
+            running = EXECUTOR.submit(() -> {
+                try {
+                    result.complete(HttpClientUtil.abortable(requests, task));
+                } catch (Throwable e) {
+                    FAILED.incrementAndGet();
+                    result.completeExceptionally(e);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            REJECTED.incrementAndGet();
+            result.completeExceptionally(new MeterSphereException("MeterSphere 查询任务过多，请稍后重试: " + name + "，" + e.getMessage()));
+            return result;
+        }
+        Future<?> timeout = WATCHDOG.schedule(() -> {
+            if (result.completeExceptionally(new TimeoutException("MeterSphere 查询超时(" + TASK_TIMEOUT_SECONDS + "秒): " + name))) {
+                TIMED_OUT.incrementAndGet();
+                running.cancel(true);
+                requests.abort();
+            }
+        }, TASK_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        result.whenComplete((r, e) -> {
+            timeout.cancel(false);
+            if (result.isCancelled()) {
+                // 中断不能打断阻塞中的读取，直接中止请求
+                running.cancel(true);
+                requests.abort();
+            }
+        });
+        return result;
+    }
+
+    /**
+     * 队列满时在提交方线程上等待空位，超过 SUBMIT_WAIT_SECONDS 仍没有空位才拒绝
+     */
+    private static void waitForSpace(Runnable runnable, ThreadPoolExecutor executor) {
+        if (executor.isShutdown()) {
+            throw new RejectedExecutionException("MeterSphere 查询线程池已关闭");
+        }
+        try {
+            if (!executor.getQueue().offer(runnable, SUBMIT_WAIT_SECONDS, TimeUnit.SECONDS)) {
+                throw new RejectedExecutionException("等待" + SUBMIT_WAIT_SECONDS + "秒后队列仍已满");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RejectedExecutionException("等待队列空位时被中断", e);
+        }
+        // 等待期间线程可能已空闲回收，保证至少有一个线程处理队列
+        if (executor.getPoolSize() == 0) {
+            executor.prestartCoreThread();
+        }
+    }
+
+    /**
+     * 排队中的任务数
+     */
+    public static int getQueueDepth() {
+        return EXECUTOR.getQueue().size();
+    }
+
+    /**
+     * 正在执行的任务数
+     */
+    public static int getActiveCount() {
+        return EXECUTOR.getActiveCount();
+    }
+
+    public static long getCompletedCount() {
+        return EXECUTOR.getCompletedTaskCount();
+    }
+
+    public static long getRejectedCount() {
+        return REJECTED.get();
+    }
+
+    public static long getTimedOutCount() {
+        return TIMED_OUT.get();
+    }
+
+    public static long getFailedCount() {
+        return FAILED.get();
+    }
+
+    @Terminator
+    public static void shutdown() {
+        WATCHDOG.shutdownNow();
+        EXECUTOR.shutdownNow();
+    }
+}
@@ -0,0 +1,203 @@
+package io.metersphere.client;
+
+import com.alibaba.fastjson.JSON;
+import com.alibaba.fastjson.JSONObject;
+import hudson.init.InitMilestone;
+import hudson.init.Initializer;
+import io.metersphere.commons.model.TestCaseDTO;
+import io.metersphere.commons.model.TestPlanDTO;
+import io.metersphere.commons.utils.LogUtil;
+import jenkins.model.Jenkins;
+import org.apache.commons.codec.digest.DigestUtils;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * 测试列表、测试计划列表在 JENKINS_HOME/metersphere/catalog 下的本地副本。
+ * 每个账号和查询范围一个文件，列表加载后内容有变化时才写入；Jenkins 启动后第一次用到时读取，
+ * 先用本地副本响应，同时在后台重新查询，之后不再读取。
+ * 测试计划带有 updateTime，按 ID、名称和 updateTime 判断是否变化，不必序列化整个列表；
+ * 测试没有更新时间，按整个列表内容的摘要判断。
+ */
+public class CatalogStore {
+
+    private static final String STORE_DIR = "catalog";
+    // 超过该时长未更新的副本不再使用，单位天
+    private static final long MAX_AGE_MILLIS = Long.getLong("io.metersphere.catalog.storeMaxAgeDays", 7L) * 24 * 3600000L;
+
+    // 保存本地副本的列表类型，按查询范围的前缀区分
+    private static final Map<String, Class<?>> PERSISTENT_SCOPES = new HashMap<>();
+
+    static {
+        PERSISTENT_SCOPES.put("testCases", TestCaseDTO.class);
+        PERSISTENT_SCOPES.put("testPlans", TestPlanDTO.class);
+    }
+
+    // 最近一次写入的内容摘要，内容不变时不重复写入
+    private static final ConcurrentMap<String, String> DIGESTS = new ConcurrentHashMap<>();
+    // 本次启动后已读取过的副本
+    private static final Set<String> READ = ConcurrentHashMap.newKeySet();
+
+    public static boolean isPersistent(String scope) {
+        return PERSISTENT_SCOPES.containsKey(scopeType(scope));
+    }
+
+    /**
+     * 读取本地副本，每个副本在本次启动后只读取一次
+     *
+     * @return 没有可用的副本时为null
+     */
+    public static List<?> read(String credentialKey, String scope) {
+        Class<?> elementType = PERSISTENT_SCOPES.get(scopeType(scope));
+        File file = storeFile(credentialKey, scope);
+        if (elementType == null || file == null || !READ.add(file.getName()) || !file.exists()) {
+            return null;
+        }
+        if (System.currentTimeMillis() - file.lastModified() > MAX_AGE_MILLIS) {
+            delete(file);
+            return null;
+        }
+        try (InputStream in = Files.newInputStream(file.toPath())) {
+            JSONObject stored = JSON.parseObject(in, StandardCharsets.UTF_8, JSONObject.class);
+            if (stored == null || !scope.equals(stored.getString("scope"))) {
+                return null;
+            }
+            DIGESTS.put(file.getName(), stored.getString("digest"));
+            return stored.getJSONArray("items").toJavaList(elementType);
+        } catch (Exception e) {
+            LogUtil.warn("读取本地列表失败: " + file, e);
+            delete(file);
+            return null;
+        }
+    }
+
+    /**
+     * 保存列表，内容与上次保存的相同时跳过
+     */
+    public static void write(String credentialKey, String scope, List<?> items) {
+        File file = storeFile(credentialKey, scope);
+        if (!isPersistent(scope) || file == null) {
+            return;
+        }
+        READ.add(file.getName());
+        // 有版本时先比较版本，未变化则不必序列化
+        String version = version(scope, items);
+        String json = version == null ? JSON.toJSONString(items) : null;
+        String digest = version != null ? version : DigestUtils.sha256Hex(json);
+        if (digest.equals(DIGESTS.get(file.getName())) && file.exists()) {
+            return;
+        }
+        if (json == null) {
+            json = JSON.toJSONString(items);
+        }
+        JSONObject stored = new JSONObject(true);
+        stored.put("scope", scope);
+        stored.put("savedAt", System.currentTimeMillis());
+        stored.put("digest", digest);
+        stored.put("items", JSON.parse(json));
+        File tmp = new File(file.getParentFile(), file.getName() + ".tmp");
+        try {
+            Files.createDirectories(file.getParentFile().toPath());
+            Files.write(tmp.toPath(), stored.toJSONString().getBytes(StandardCharsets.UTF_8));
+            Files.move(tmp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            DIGESTS.put(file.getName(), digest);
+        } catch (IOException e) {
+            LogUtil.warn("保存本地列表失败: " + file, e);
+        }
+    }
+
+    /**
+     * 由 ID、名称和 updateTime 计算的列表版本，用于判断测试计划列表是否变化。
+     * 计划被编辑时服务端会更新 updateTime；缺少 updateTime 的列表和其他类型的列表无法据此判断
+     *
+     * @return 无法判断时为null
+     */
+    public static String version(String scope, List<?> items) {
+        if (!"testPlans".equals(scopeType(scope)) || items == null) {
+            return null;
+        }
+        StringBuilder text = new StringBuilder();
+        for (Object item : items) {
+            TestPlanDTO plan = (TestPlanDTO) item;
+            if (plan.getUpdateTime() == null) {
+                return null;
+            }
+            text.append(plan.getId()).append('\u0000').append(plan.getName()).append('\u0000')
+                    .append(plan.getUpdateTime()).append('\n');
+        }
+        return "v:" + DigestUtils.sha256Hex(text.toString());
+    }
+
+    /**
+     * 删除该账号的所有本地副本
+     */
+    public static void delete(String credentialKey) {
+        File dir = storeDir();
+        File[] files = dir == null ? null : dir.listFiles((d, name) -> name.startsWith(credentialPrefix(credentialKey)));
+        if (files != null) {
+            for (File file : files) {
+                delete(file);
+            }
+        }
+    }
+
+    /**
+     * 启动时只清理过期的副本，不读取内容
+     */
+    @Initializer(after = InitMilestone.JOB_LOADED)
+    public static void cleanup() {
+        File dir = storeDir();
+        File[] files = dir == null ? null : dir.listFiles();
+        if (files == null) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        for (File file : files) {
+            if (now - file.lastModified() > MAX_AGE_MILLIS) {
+                delete(file);
+            }
+        }
+    }
+
+    private static void delete(File file) {
+        DIGESTS.remove(file.getName());
+        try {
+            Files.deleteIfExists(file.toPath());
+        } catch (IOException e) {
+            LogUtil.warn("删除本地列表失败: " + file, e);
+        }
+    }
+
+    private static String scopeType(String scope) {
+        int index = scope.indexOf('|');
+        return index < 0 ? scope : scope.substring(0, index);
+    }
+
+    /**
+     * 文件名只包含账号和查询范围的摘要
+     */
+    private static File storeFile(String credentialKey, String scope) {
+        File dir = storeDir();
+        return dir == null ? null : new File(dir, credentialPrefix(credentialKey) + DigestUtils.sha256Hex(scope).substring(0, 16) + ".json");
+    }
+
+    private static String credentialPrefix(String credentialKey) {
+        return DigestUtils.sha256Hex(credentialKey).substring(0, 16) + "-";
+    }
+
+    private static File storeDir() {
+        Jenkins jenkins = Jenkins.getInstance();
+        return jenkins == null ? null : new File(new File(jenkins.getRootDir(), "metersphere"), STORE_DIR);
+    }
+}
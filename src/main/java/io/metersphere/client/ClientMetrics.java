@@ -0,0 +1,389 @@
+package io.metersphere.client;
+
+import hudson.init.InitMilestone;
+import hudson.init.Initializer;
+import hudson.init.Terminator;
+import io.metersphere.commons.constants.ApiUrlConstants;
+import io.metersphere.commons.utils.HttpClientUtil;
+import io.metersphere.commons.utils.LatencyHistogram;
+import io.metersphere.commons.utils.LogUtil;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.beans.ConstructorProperties;
+import java.lang.management.ManagementFactory;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * MeterSphere 接口调用的统计：按 {@link ApiUrlConstants} 中的接口分别记录请求数、失败数、取消数、耗时分布和进行中的请求数。
+ * 地址中拼接的ID等路径参数不单独统计。数据保存在内存中，Jenkins 重启后清零；
+ * 通过 ${JENKINS_URL}/metersphere-metrics/ 和 JMX（{@value #OBJECT_NAME}）查看。
+ */
+public class ClientMetrics {
+
+    public static final String OBJECT_NAME = "io.metersphere:type=ClientMetrics";
+    // 不属于已知接口的请求
+    private static final String OTHER = "other";
+
+    // 已知接口，长的在前，按前缀匹配时先匹配更具体的接口
+    private static final List<String> PATHS = knownPaths();
+    private static final ConcurrentMap<String, Endpoint> ENDPOINTS = new ConcurrentHashMap<>();
+    private static final AtomicInteger IN_FLIGHT = new AtomicInteger();
+
+    /**
+     * 开始记录一次请求，请求结束时必须调用 {@link Request#end(boolean)} 或 {@link Request#cancel()}
+     *
+     * @param path 不含服务器地址的请求路径
+     */
+    public static Request start(String path) {
+        Endpoint endpoint = ENDPOINTS.computeIfAbsent(endpointOf(path), Endpoint::new);
+        endpoint.inFlight.incrementAndGet();
+        IN_FLIGHT.incrementAndGet();
+        return new Request(endpoint);
+    }
+
+    static String endpointOf(String path) {
+        for (String known : PATHS) {
+            if (path.startsWith(known) && (path.length() == known.length() || path.charAt(known.length()) == '/')) {
+                return known;
+            }
+        }
+        return OTHER;
+    }
+
+    /**
+     * 各接口的统计，按接口排序
+     */
+    public static List<Endpoint> getEndpoints() {
+        return new ArrayList<>(new TreeMap<>(ENDPOINTS).values());
+    }
+
+    public static int getInFlight() {
+        return IN_FLIGHT.get();
+    }
+
+    private static List<String> knownPaths() {
+        List<String> paths = new ArrayList<>();
+        for (Field field : ApiUrlConstants.class.getFields()) {
+            if (Modifier.isStatic(field.getModifiers()) && field.getType() == String.class) {
+                try {
+                    paths.add((String) field.get(null));
+                } catch (IllegalAccessException e) {
+                    LogUtil.warn("读取接口地址失败: " + field.getName(), e);
+                }
+            }
+        }
+        paths.sort(Comparator.comparingInt(String::length).reversed());
+        return paths;
+    }
+
+    public static final class Request {
+        private final Endpoint endpoint;
+        private final long startedAt = System.nanoTime();
+        private final AtomicInteger ended = new AtomicInteger();
+
+        private Request(Endpoint endpoint) {
+            this.endpoint = endpoint;
+        }
+
+        /**
+         * @param success 请求成功且返回结果为成功
+         */
+        public void end(boolean success) {
+            if (ended.compareAndSet(0, 1)) {
+                release();
+                endpoint.requests.increment();
+                if (!success) {
+                    endpoint.errors.increment();
+                }
+                endpoint.latency.record(TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - startedAt));
+            }
+        }
+
+        /**
+         * 请求被调用方取消，不计入耗时和失败数
+         */
+        public void cancel() {
+            if (ended.compareAndSet(0, 1)) {
+                release();
+                endpoint.cancelled.increment();
+            }
+        }
+
+        private void release() {
+            endpoint.inFlight.decrementAndGet();
+            IN_FLIGHT.decrementAndGet();
+        }
+    }
+
+    public static final class Endpoint {
+        private final String name;
+        private final LongAdder requests = new LongAdder();
+        private final LongAdder errors = new LongAdder();
+        private final LongAdder cancelled = new LongAdder();
+        private final AtomicInteger inFlight = new AtomicInteger();
+        private final LatencyHistogram latency = new LatencyHistogram();
+
+        private Endpoint(String name) {
+            this.name = name;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        /**
+         * 已结束的请求数，不含取消的请求
+         */
+        public long getRequests() {
+            return requests.sum();
+        }
+
+        public long getErrors() {
+            return errors.sum();
+        }
+
+        public long getCancelled() {
+            return cancelled.sum();
+        }
+
+        public int getInFlight() {
+            return inFlight.get();
+        }
+
+        public LatencyHistogram.Snapshot getLatency() {
+            return latency.snapshot();
+        }
+    }
+
+    /**
+     * JMX 中查看的接口统计，耗时单位毫秒
+     */
+    public static final class EndpointStats {
+        private final String endpoint;
+        private final long requests;
+        private final long errors;
+        private final long cancelled;
+        private final int inFlight;
+        private final double p50Millis;
+        private final double p90Millis;
+        private final double p99Millis;
+        private final double p999Millis;
+        private final double maxMillis;
+
+        @ConstructorProperties({"endpoint", "requests", "errors", "cancelled", "inFlight",
+                "p50Millis", "p90Millis", "p99Millis", "p999Millis", "maxMillis"})
+        public EndpointStats(String endpoint, long requests, long errors, long cancelled, int inFlight,
+                             double p50Millis, double p90Millis, double p99Millis, double p999Millis, double maxMillis) {
+            this.endpoint = endpoint;
+            this.requests = requests;
+            this.errors = errors;
+            this.cancelled = cancelled;
+            this.inFlight = inFlight;
+            this.p50Millis = p50Millis;
+            this.p90Millis = p90Millis;
+            this.p99Millis = p99Millis;
+            this.p999Millis = p999Millis;
+            this.maxMillis = maxMillis;
+        }
+
+        static EndpointStats of(Endpoint endpoint) {
+            LatencyHistogram.Snapshot latency = endpoint.getLatency();
+            return new EndpointStats(endpoint.getName(), endpoint.getRequests(), endpoint.getErrors(),
+                    endpoint.getCancelled(), endpoint.getInFlight(), millis(latency.getValueAtQuantile(0.5)),
+                    millis(latency.getValueAtQuantile(0.9)), millis(latency.getValueAtQuantile(0.99)),
+                    millis(latency.getValueAtQuantile(0.999)), millis(latency.getMax()));
+        }
+
+        private static double millis(long micros) {
+            return micros / 1000.0;
+        }
+
+        public String getEndpoint() {
+            return endpoint;
+        }
+
+        public long getRequests() {
+            return requests;
+        }
+
+        public long getErrors() {
+            return errors;
+        }
+
+        public long getCancelled() {
+            return cancelled;
+        }
+
+        public int getInFlight() {
+            return inFlight;
+        }
+
+        public double getP50Millis() {
+            return p50Millis;
+        }
+
+        public double getP90Millis() {
+            return p90Millis;
+        }
+
+        public double getP99Millis() {
+            return p99Millis;
+        }
+
+        public double getP999Millis() {
+            return p999Millis;
+        }
+
+        public double getMaxMillis() {
+            return maxMillis;
+        }
+    }
+
+    public interface ClientMetricsMXBean {
+        int getInFlight();
+
+        long getRequests();
+
+        long getErrors();
+
+        List<EndpointStats> getEndpoints();
+
+        /**
+         * 地址 -&gt; 已占用/空闲/等待/上限
+         */
+        Map<String, String> getAsyncPoolStats();
+
+        Map<String, String> getPoolStats();
+
+        int getCatalogQueueDepth();
+
+        int getCatalogActiveCount();
+
+        long getCatalogCompletedCount();
+
+        long getCatalogRejectedCount();
+
+        long getCatalogTimedOutCount();
+
+        long getCatalogFailedCount();
+
+        int getTrackedRuns();
+    }
+
+    private static final class MXBean implements ClientMetricsMXBean {
+
+        @Override
+        public int getInFlight() {
+            return ClientMetrics.getInFlight();
+        }
+
+        @Override
+        public long getRequests() {
+            return ENDPOINTS.values().stream().mapToLong(Endpoint::getRequests).sum();
+        }
+
+        @Override
+        public long getErrors() {
+            return ENDPOINTS.values().stream().mapToLong(Endpoint::getErrors).sum();
+        }
+
+        @Override
+        public List<EndpointStats> getEndpoints() {
+            List<EndpointStats> stats = new ArrayList<>();
+            for (Endpoint endpoint : ClientMetrics.getEndpoints()) {
+                stats.add(EndpointStats.of(endpoint));
+            }
+            return stats;
+        }
+
+        @Override
+        public Map<String, String> getAsyncPoolStats() {
+            return poolStats(true);
+        }
+
+        @Override
+        public Map<String, String> getPoolStats() {
+            return poolStats(false);
+        }
+
+        private static Map<String, String> poolStats(boolean async) {
+            Map<String, String> stats = new TreeMap<>();
+            HttpClientUtil.getPoolStats(async).forEach((route, pool) -> stats.put(route,
+                    pool.getLeased() + "/" + pool.getAvailable() + "/" + pool.getPending() + "/" + pool.getMax()));
+            return stats;
+        }
+
+        @Override
+        public int getCatalogQueueDepth() {
+            return CatalogExecutor.getQueueDepth();
+        }
+
+        @Override
+        public int getCatalogActiveCount() {
+            return CatalogExecutor.getActiveCount();
+        }
+
+        @Override
+        public long getCatalogCompletedCount() {
+            return CatalogExecutor.getCompletedCount();
+        }
+
+        @Override
+        public long getCatalogRejectedCount() {
+            return CatalogExecutor.getRejectedCount();
+        }
+
+        @Override
+        public long getCatalogTimedOutCount() {
+            return CatalogExecutor.getTimedOutCount();
+        }
+
+        @Override
+        public long getCatalogFailedCount() {
+            return CatalogExecutor.getFailedCount();
+        }
+
+        @Override
+        public int getTrackedRuns() {
+            return RunStatusScheduler.getTrackedCount();
+        }
+    }
+
+    @Initializer(after = InitMilestone.PLUGINS_STARTED)
+    public static void registerMBean() {
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            ObjectName name = new ObjectName(OBJECT_NAME);
+            if (!server.isRegistered(name)) {
+                server.registerMBean(new MXBean(), name);
+            }
+        } catch (Exception e) {
+            LogUtil.warn("注册 JMX 统计失败", e);
+        }
+    }
+
+    @Terminator
+    public static void unregisterMBean() {
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            ObjectName name = new ObjectName(OBJECT_NAME);
+            if (server.isRegistered(name)) {
+                server.unregisterMBean(name);
+            }
+        } catch (Exception e) {
+            LogUtil.warn("注销 JMX 统计失败", e);
+        }
+    }
+}
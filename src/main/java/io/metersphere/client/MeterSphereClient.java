@@ -2,9 +2,11 @@ package io.metersphere.client;
 
 import com.alibaba.fastjson.JSON;
 import com.alibaba.fastjson.JSONObject;
+import com.alibaba.fastjson.util.ParameterizedTypeImpl;
 import io.metersphere.ResultHolder;
 import io.metersphere.commons.constants.ApiUrlConstants;
 import io.metersphere.commons.constants.RequestMethod;
+import io.metersphere.commons.exception.MeterSphereAuthException;
 import io.metersphere.commons.exception.MeterSphereException;
 import io.metersphere.commons.model.*;
 import io.metersphere.commons.utils.HttpClientConfig;
@@ -12,16 +14,22 @@ import io.metersphere.commons.utils.HttpClientUtil;
 import io.metersphere.commons.utils.LogUtil;
 import org.apache.commons.codec.binary.Base64;
 import org.apache.commons.lang.StringUtils;
+import org.apache.http.HttpResponse;
+import org.apache.http.HttpStatus;
 
 import javax.crypto.Cipher;
 import javax.crypto.spec.IvParameterSpec;
 import javax.crypto.spec.SecretKeySpec;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.reflect.Type;
+import java.nio.charset.Charset;
 import java.nio.charset.StandardCharsets;
 import java.util.*;
-import java.util.concurrent.CopyOnWriteArrayList;
-import java.util.concurrent.CountDownLatch;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
 
 public class MeterSphereClient {
 
@@ -32,7 +40,9 @@ public class MeterSphereClient {
     private final String secretKey;
     private final String endpoint;
 
-    private final static ExecutorService executorService = Executors.newFixedThreadPool(5);
+    // 项目下测试的各个来源
+    private static final List<RunType> CASE_TYPES = Collections.unmodifiableList(
+            Arrays.asList(RunType.PERFORMANCE, RunType.DEFINITION, RunType.SCENARIO, RunType.UI));
 
     public MeterSphereClient(String accessKey, String secretKey, String endpoint) {
 
@@ -41,113 +51,197 @@ public class MeterSphereClient {
         this.endpoint = endpoint;
     }
 
+    public String getEndpoint() {
+        return endpoint;
+    }
+
+    String getAccessKey() {
+        return accessKey;
+    }
+
+    String getSecretKey() {
+        return secretKey;
+    }
+
     /*校验账号*/
     public String checkUser() {
-        ResultHolder getUserResult = call(ApiUrlConstants.USER_INFO);
-        if (!getUserResult.isSuccess()) {
-            throw new MeterSphereException(getUserResult.getMessage());
-        }
-        return getUserResult.getData().toString();
+        return await(checkUserAsync());
+    }
+
+    public CompletableFuture<String> checkUserAsync() {
+        // 认证失败时 callAsync 已作废该账号的会话信息；超时等临时错误只是不缓存这次的结果
+        return session().userId(() -> this.<Object>callAsync(ApiUrlConstants.USER_INFO, Object.class)
+                .thenApply(getUserResult -> getUserResult.getData().toString()));
+    }
+
+    /*清除该账号缓存的用户、站点和License信息*/
+    public void invalidateSession() {
+        SessionCache.invalidate(endpoint, accessKey, secretKey);
+    }
+
+    private SessionCache.Session session() {
+        return SessionCache.get(endpoint, accessKey, secretKey);
     }
 
     /*获取组织下工作空间*/
     public List<WorkspaceDTO> getWorkspace() {
-        ResultHolder result = call(ApiUrlConstants.LIST_USER_WORKSPACE);
-        String list = JSON.toJSONString(result.getData());
-        LogUtil.info("用户所属工作空间" + list);
-        return JSON.parseArray(list, WorkspaceDTO.class);
+        ResultHolder<List<WorkspaceDTO>> result = call(ApiUrlConstants.LIST_USER_WORKSPACE, listOf(WorkspaceDTO.class));
+        LogUtil.info(() -> "用户所属工作空间" + LogUtil.payload(result.getData()));
+        return result.getData();
     }
 
     /*获取工作空间下项目列表*/
     public List<ProjectDTO> getProjectIds(String workspaceId) {
-        String userId = this.checkUser();
-        HashMap<String, Object> params = new HashMap<>();
-        params.put("workspaceId", workspaceId);
-        params.put("userId", userId);
-        ResultHolder result = call(ApiUrlConstants.PROJECT_LIST_ALL, RequestMethod.POST, params);
-        String listJson = JSON.toJSONString(result.getData());
-        LogUtil.info("用户所属项目" + listJson);
-        return JSON.parseArray(listJson, ProjectDTO.class);
+        return await(getProjectIdsAsync(workspaceId));
+    }
 
+    public CompletableFuture<List<ProjectDTO>> getProjectIdsAsync(String workspaceId) {
+        return checkUserAsync().thenCompose(userId -> {
+            HashMap<String, Object> params = new HashMap<>();
+            params.put("workspaceId", workspaceId);
+            params.put("userId", userId);
+            return this.<List<ProjectDTO>>callAsync(ApiUrlConstants.PROJECT_LIST_ALL, RequestMethod.POST, params, listOf(ProjectDTO.class));
+        }).thenApply(result -> {
+            LogUtil.info(() -> "用户所属项目" + LogUtil.payload(result.getData()));
+            return result.getData();
+        });
     }
 
     /*查询该项目下所有测试用例(接口+性能)*/
     public List<TestCaseDTO> getTestCases(String projectId) {
-        CountDownLatch count = new CountDownLatch(4);
-        List<TestCaseDTO> result = new CopyOnWriteArrayList<>();
-        executorService.submit(() -> {
-            try {
-                ResultHolder perfResult = call(ApiUrlConstants.PERFORMANCE_LIST_PROJECT + "/" + projectId);
-                result.addAll(JSON.parseArray(JSON.toJSONString(perfResult.getData()), TestCaseDTO.class));
-            } finally {
-                count.countDown();
-            }
-        });
-        executorService.submit(() -> {
-            try {
-                ResultHolder apiCaseResult = call(ApiUrlConstants.API_CASE_LIST_PROJECT + "/" + projectId);
-                result.addAll(JSON.parseArray(JSON.toJSONString(apiCaseResult.getData()), TestCaseDTO.class));
-            } finally {
-                count.countDown();
-            }
-        });
-        executorService.submit(() -> {
-            try {
-                ResultHolder apiScenarioResult = call(ApiUrlConstants.API_SCENARIO_LIST_PROJECT + "/" + projectId);
-                result.addAll(JSON.parseArray(JSON.toJSONString(apiScenarioResult.getData()), TestCaseDTO.class));
-            } finally {
-                count.countDown();
+        // 各类测试的列表可能很大，在查询线程池中同步下载和解析，不占用网络IO线程
+        List<CompletableFuture<List<TestCaseDTO>>> sources = new ArrayList<>();
+        for (RunType type : CASE_TYPES) {
+            sources.add(getTestCasesAsync(projectId, type));
+        }
+        List<TestCaseDTO> result = new ArrayList<>();
+        try {
+            for (CompletableFuture<List<TestCaseDTO>> source : sources) {
+                result.addAll(await(source));
             }
-        });
-        executorService.submit(() -> {
-            try {
+        } finally {
+            sources.forEach(source -> source.cancel(true));
+        }
+        LogUtil.debug(() -> "该项目下的所有的测试" + LogUtil.payload(result));
+        return result;
+    }
+
+    private List<TestCaseDTO> fetchTestCases(String projectId, RunType type) {
+        ResultHolder<List<TestCaseDTO>> result;
+        switch (type) {
+            case PERFORMANCE:
+                result = call(ApiUrlConstants.PERFORMANCE_LIST_PROJECT + "/" + projectId, listOf(TestCaseDTO.class));
+                break;
+            case DEFINITION:
+                result = call(ApiUrlConstants.API_CASE_LIST_PROJECT + "/" + projectId, listOf(TestCaseDTO.class));
+                break;
+            case SCENARIO:
+                result = call(ApiUrlConstants.API_SCENARIO_LIST_PROJECT + "/" + projectId, listOf(TestCaseDTO.class));
+                break;
+            case UI:
                 HashMap<Object, Object> params = new HashMap<>();
                 params.put("projectId", projectId);
-                ResultHolder uiResult = call(ApiUrlConstants.UI_LIST_PROJECT, RequestMethod.POST, params);
-                List<TestCaseDTO> c = JSON.parseArray(JSON.toJSONString(uiResult.getData()), TestCaseDTO.class);
-                c.forEach(ui -> ui.setType("UI场景"));
-                result.addAll(c);
-            } finally {
-                count.countDown();
-            }
-        });
-        try {
-            count.await();
-            LogUtil.debug("该项目下的所有的测试" + JSON.toJSONString(result));
-        } catch (Exception e) {
-            LogUtil.error(e);
+                result = call(ApiUrlConstants.UI_LIST_PROJECT, RequestMethod.POST, params, listOf(TestCaseDTO.class));
+                break;
+            default:
+                throw new MeterSphereException("不支持的测试类型: " + type);
         }
+        return markType(result.getData(), type);
+    }
 
-        return result;
+    private static List<TestCaseDTO> markType(List<TestCaseDTO> testCases, RunType type) {
+        if (testCases == null) {
+            return Collections.emptyList();
+        }
+        if (type == RunType.UI) {
+            testCases.forEach(ui -> ui.setType("UI场景"));
+        }
+        return testCases;
+    }
+
+    /**
+     * 查询该项目下某一类测试，取消返回的Future时中止请求。
+     * 列表可能很大，与 {@link #getTestCases(String)} 一样在查询线程池中下载和解析，不占用网络IO线程
+     */
+    public CompletableFuture<List<TestCaseDTO>> getTestCasesAsync(String projectId, RunType type) {
+        return CatalogExecutor.submit(type + "|" + projectId, () -> fetchTestCases(projectId, type));
+    }
+
+    /*按ID查找项目下的测试，找不到时为null*/
+    public TestCaseDTO findTestCase(String projectId, String testCaseId, RunType type) {
+        return await(findTestCaseAsync(projectId, testCaseId, type));
+    }
+
+    /**
+     * 按ID查找项目下的测试。已知类型时只查询该类型的列表，否则同时查询所有类型，找到后立即返回并取消其余请求
+     *
+     * @param type 测试类型，未知时为null
+     */
+    public CompletableFuture<TestCaseDTO> findTestCaseAsync(String projectId, String testCaseId, RunType type) {
+        List<RunType> types = type == null ? CASE_TYPES : Collections.singletonList(type);
+        List<CompletableFuture<List<TestCaseDTO>>> requests = new ArrayList<>();
+        for (RunType t : types) {
+            requests.add(getTestCasesAsync(projectId, t));
+        }
+        CompletableFuture<TestCaseDTO> found = new CompletableFuture<>();
+        AtomicInteger remaining = new AtomicInteger(requests.size());
+        AtomicReference<Throwable> error = new AtomicReference<>();
+        for (CompletableFuture<List<TestCaseDTO>> request : requests) {
+            request.whenComplete((testCases, e) -> {
+                if (e != null) {
+                    error.compareAndSet(null, e);
+                } else {
+                    testCases.stream()
+                            .filter(testCase -> StringUtils.equals(testCaseId, testCase.getId()))
+                            .findFirst()
+                            .ifPresent(found::complete);
+                }
+                // 都没有找到时，有查询失败则无法确定测试不存在
+                if (remaining.decrementAndGet() == 0) {
+                    if (error.get() != null) {
+                        found.completeExceptionally(error.get());
+                    } else {
+                        found.complete(null);
+                    }
+                }
+            });
+        }
+        // 找到或调用方取消后，不再需要其余请求
+        found.whenComplete((r, e) -> requests.forEach(request -> request.cancel(false)));
+        return found;
     }
 
     /*单独执行所选测试环境列表*/
     public List<ApiTestEnvironmentDTO> getEnvironmentIds(String projectId) {
-        ResultHolder result = call(ApiUrlConstants.ENVIRONMEN_LIST + "/" + projectId);
-        String listJson = JSON.toJSONString(result.getData());
-        LogUtil.debug("该项目下的环境列表" + listJson);
-        return JSON.parseArray(listJson, ApiTestEnvironmentDTO.class);
+        ResultHolder<List<ApiTestEnvironmentDTO>> result = call(ApiUrlConstants.ENVIRONMEN_LIST + "/" + projectId, listOf(ApiTestEnvironmentDTO.class));
+        LogUtil.debug(() -> "该项目下的环境列表" + LogUtil.payload(result.getData()));
+        return result.getData();
     }
 
     /*查询该项目下所有测试计划*/
     public List<TestPlanDTO> getTestPlanIds(String projectId, String workspaceId) {
-        ResultHolder result = call(ApiUrlConstants.PLAN_LIST_ALL + "/" + projectId + "/" + workspaceId);
-        String listJson = JSON.toJSONString(result.getData());
-        LogUtil.debug("该项目下的所有的测试计划" + listJson);
-        return JSON.parseArray(listJson, TestPlanDTO.class);
+        ResultHolder<List<TestPlanDTO>> result = call(ApiUrlConstants.PLAN_LIST_ALL + "/" + projectId + "/" + workspaceId, listOf(TestPlanDTO.class));
+        LogUtil.debug(() -> "该项目下的所有的测试计划" + LogUtil.payload(result.getData()));
+        return result.getData();
     }
 
     /*资源池列表*/
     public List<EnvironmentPoolDTO> getPoolEnvironmentIds() {
-        ResultHolder result = call(ApiUrlConstants.TEST_POOL);
-        String listJson = JSON.toJSONString(result.getData());
-        LogUtil.debug("该项目下的资源池列表" + listJson);
-        return JSON.parseArray(listJson, EnvironmentPoolDTO.class);
+        ResultHolder<List<EnvironmentPoolDTO>> result = call(ApiUrlConstants.TEST_POOL, listOf(EnvironmentPoolDTO.class));
+        LogUtil.debug(() -> "该项目下的资源池列表" + LogUtil.payload(result.getData()));
+        return result.getData();
     }
 
     /*执行测试计划*/
     public String exeTestPlan(String projectId, String testPlanId, String mode, String resourcePoolId) {
-        String userId = this.checkUser();
+        return await(exeTestPlanAsync(projectId, testPlanId, mode, resourcePoolId));
+    }
+
+    public CompletableFuture<String> exeTestPlanAsync(String projectId, String testPlanId, String mode, String resourcePoolId) {
+        return checkUserAsync().thenCompose(userId -> exeTestPlanAsync(projectId, testPlanId, mode, resourcePoolId, userId));
+    }
+
+    private CompletableFuture<String> exeTestPlanAsync(String projectId, String testPlanId, String mode, String resourcePoolId, String userId) {
         HashMap<String, Object> params = new HashMap<>();
         params.put("testPlanId", testPlanId);
         params.put("projectId", projectId);
@@ -164,24 +258,48 @@ public class MeterSphereClient {
             params.put("runWithinResourcePool", true);
             params.put("resourcePoolId", resourcePoolId);
         }
-        ResultHolder result = call(ApiUrlConstants.TEST_PLAN, RequestMethod.POST, params);
-        if (result.getData() instanceof String) {
-            return (String) result.getData();
-        }
-        return JSON.toJSONString(result.getData());
+        return this.<Object>callAsync(ApiUrlConstants.TEST_PLAN, RequestMethod.POST, params, Object.class).thenApply(result -> {
+            if (result.getData() instanceof String) {
+                return (String) result.getData();
+            }
+            return JSON.toJSONString(result.getData());
+        });
     }
 
     /*查询测试计划报告状态*/
     public String getStatus(String testPlanId) {
-        ResultHolder result = call(ApiUrlConstants.TEST_PLAN_STATUS + "/" + testPlanId.replace('"', ' ').trim());
-        return JSON.toJSONString(result.getData());
+        return await(getStatusAsync(testPlanId));
     }
 
-    public String runUiTest(String testCaseId, String projectId) {
-        HashMap<String, Object> params = new HashMap<>();
-        params.put("id", UUID.randomUUID().toString());
+    public CompletableFuture<String> getStatusAsync(String testPlanId) {
+        return this.<String>callAsync(ApiUrlConstants.TEST_PLAN_STATUS + "/" + testPlanId.replace('"', ' ').trim(), String.class)
+                .thenApply(ResultHolder::getData);
+    }
+
+    public List<MsExecResponseDTO> runUiTest(String testCaseId, String projectId) {
+        return await(runUiTestAsync(testCaseId, projectId));
+    }
+
+    public CompletableFuture<List<MsExecResponseDTO>> runUiTestAsync(String testCaseId, String projectId) {
         List<String> ids = new ArrayList<>();
         ids.add(testCaseId);
+        return this.<List<MsExecResponseDTO>>callAsync(ApiUrlConstants.UI_RUN, RequestMethod.POST, uiRunParams(ids, projectId), listOf(MsExecResponseDTO.class))
+                .thenApply(ResultHolder::getData);
+    }
+
+    /*批量执行UI测试，一次提交，返回 用例ID -> 报告ID*/
+    public Map<String, String> runUiTests(List<String> testCaseIds, String projectId) {
+        return await(runUiTestsAsync(testCaseIds, projectId));
+    }
+
+    public CompletableFuture<Map<String, String>> runUiTestsAsync(List<String> testCaseIds, String projectId) {
+        return this.<List<MsExecResponseDTO>>callAsync(ApiUrlConstants.UI_RUN, RequestMethod.POST, uiRunParams(testCaseIds, projectId), listOf(MsExecResponseDTO.class))
+                .thenApply(result -> toReportIds(testCaseIds, result.getData()));
+    }
+
+    private static HashMap<String, Object> uiRunParams(List<String> ids, String projectId) {
+        HashMap<String, Object> params = new HashMap<>();
+        params.put("id", UUID.randomUUID().toString());
         params.put("ids", ids);
         params.put("projectId", projectId);
         params.put("triggerMode", "API");
@@ -191,157 +309,353 @@ public class MeterSphereClient {
         uiConfigParams.put("browser", "CHROME");
         uiConfigParams.put("headlessEnabled", true);
         params.put("uiConfig", uiConfigParams);
-        ResultHolder result = call(ApiUrlConstants.UI_RUN, RequestMethod.POST, params);
-        return JSON.toJSONString(result.getData());
+        return params;
     }
 
     public String getApiTestCaseReport(String id) {
+        return await(getApiTestCaseReportAsync(id));
+    }
+
+    public CompletableFuture<String> getApiTestCaseReportAsync(String id) {
         if (StringUtils.isEmpty(id)) {
             id = UUID.randomUUID().toString();
         }
-        ResultHolder result = call(ApiUrlConstants.API_TES_RESULT + "/" + id.replace('"', ' ').trim());
-        String listJson = JSON.toJSONString(result.getData());
-        JSONObject jsonObject = JSONObject.parseObject(listJson);
-        return jsonObject.getString("execResult");
+        return callJsonAsync(ApiUrlConstants.API_TES_RESULT + "/" + id.replace('"', ' ').trim())
+                .thenApply(result -> getDataString(result, "execResult"));
     }
 
     public String getApiTestState(String reportId) {
+        return await(getApiTestStateAsync(reportId));
+    }
+
+    public CompletableFuture<String> getApiTestStateAsync(String reportId) {
         String newReportId = reportId.replace("\"", "");
-        ResultHolder result = call(ApiUrlConstants.API_GET + "/" + newReportId);
-        String listJson = JSON.toJSONString(result.getData());
-        JSONObject jsonObject = JSONObject.parseObject(listJson);
-        return jsonObject.getString("status");
+        return callJsonAsync(ApiUrlConstants.API_GET + "/" + newReportId)
+                .thenApply(result -> getDataString(result, "status"));
     }
 
     public String getUiTestState(String reportId) {
+        return await(getUiTestStateAsync(reportId));
+    }
+
+    public CompletableFuture<String> getUiTestStateAsync(String reportId) {
         String newReportId = reportId.replace("\"", "");
-        ResultHolder result = call(ApiUrlConstants.UI_GET + "/" + newReportId);
-        String listJson = JSON.toJSONString(result.getData());
-        JSONObject jsonObject = JSONObject.parseObject(listJson);
-        return jsonObject.getString("status");
+        return callJsonAsync(ApiUrlConstants.UI_GET + "/" + newReportId)
+                .thenApply(result -> getDataString(result, "status"));
     }
 
     /*单独执行场景测试*/
     public String runScenario(TestCaseDTO testCaseDTO, String id, String type, RunModeConfig config) {
+        return await(runScenarioAsync(testCaseDTO, id, type, config));
+    }
+
+    public CompletableFuture<String> runScenarioAsync(TestCaseDTO testCaseDTO, String id, String type, RunModeConfig config) {
         HashMap<String, Object> params = new HashMap<>();
         params.put("id", UUID.randomUUID().toString());
         params.put("projectId", id);
         params.put("ids", Arrays.asList(testCaseDTO.getId()));
         params.put("config", config);
-        ResultHolder result;
+        CompletableFuture<ResultHolder<List<MsExecResponseDTO>>> result;
         if (type.equals("scenario")) {
-            result = call(ApiUrlConstants.API_AUTOMATION_RUN_SINGLE, RequestMethod.POST, params);
+            result = callAsync(ApiUrlConstants.API_AUTOMATION_RUN_SINGLE, RequestMethod.POST, params, listOf(MsExecResponseDTO.class));
         } else {
             params.put("planCaseIds", Arrays.asList(testCaseDTO.getId()));
             params.put("planScenarioId", testCaseDTO.getId());
-            result = call(ApiUrlConstants.API_AUTOMATION_RUN, RequestMethod.POST, params);
+            result = callAsync(ApiUrlConstants.API_AUTOMATION_RUN, RequestMethod.POST, params, listOf(MsExecResponseDTO.class));
+        }
+        return result.thenApply(r -> r.getData().get(0).getReportId());
+    }
+
+    /*批量执行场景测试，一次提交，返回 场景ID -> 报告ID*/
+    public Map<String, String> runScenarios(List<String> scenarioIds, String projectId, RunModeConfig config) {
+        return await(runScenariosAsync(scenarioIds, projectId, config));
+    }
+
+    public CompletableFuture<Map<String, String>> runScenariosAsync(List<String> scenarioIds, String projectId, RunModeConfig config) {
+        HashMap<String, Object> params = new HashMap<>();
+        params.put("id", UUID.randomUUID().toString());
+        params.put("projectId", projectId);
+        params.put("ids", scenarioIds);
+        params.put("config", config);
+        return this.<List<MsExecResponseDTO>>callAsync(ApiUrlConstants.API_AUTOMATION_RUN_SINGLE, RequestMethod.POST, params, listOf(MsExecResponseDTO.class))
+                .thenApply(result -> toReportIds(scenarioIds, result.getData()));
+    }
+
+    /**
+     * 批量执行的返回按 testId 对应到用例；没有返回 testId 且数量一致时按提交顺序对应
+     */
+    private static Map<String, String> toReportIds(List<String> ids, List<MsExecResponseDTO> responses) {
+        Map<String, String> reportIds = new LinkedHashMap<>();
+        if (responses == null) {
+            return reportIds;
+        }
+        for (MsExecResponseDTO response : responses) {
+            if (response.getTestId() != null && response.getReportId() != null) {
+                reportIds.put(response.getTestId(), response.getReportId());
+            }
+        }
+        if (reportIds.isEmpty() && responses.size() == ids.size()) {
+            for (int i = 0; i < ids.size(); i++) {
+                reportIds.put(ids.get(i), responses.get(i).getReportId());
+            }
         }
-        return JSON.parseArray(JSON.toJSONString(result.getData())).getJSONObject(0).getString("reportId");
+        return reportIds;
     }
 
     public String getApiScenario(String id) {
-        if (id.equals("") || id == null) {
+        return await(getApiScenarioAsync(id));
+    }
+
+    public CompletableFuture<String> getApiScenarioAsync(String id) {
+        if (id == null || id.equals("")) {
             id = UUID.randomUUID().toString();
         }
-        ResultHolder result = call(ApiUrlConstants.API_AUTOMATION_GETAPISCENARIO + "/" + id.replace('"', ' ').trim());
-        String listJson = JSON.toJSONString(result.getData());
-        JSONObject jsonObject = JSONObject.parseObject(listJson);
-        return jsonObject.getString("status");
+        return callJsonAsync(ApiUrlConstants.API_AUTOMATION_GETAPISCENARIO + "/" + id.replace('"', ' ').trim())
+                .thenApply(result -> getDataString(result, "status"));
     }
 
     /*单独执行接口定义*/
     public void runDefinition(TestCaseDTO testCaseDTO, String runMode, String testPlanId, String testCaseId) {
+        await(runDefinitionAsync(testCaseDTO, runMode, testPlanId, testCaseId));
+    }
+
+    public CompletableFuture<Void> runDefinitionAsync(TestCaseDTO testCaseDTO, String runMode, String testPlanId, String testCaseId) {
         HashMap<String, Object> params = new HashMap<>();
         params.put("caseId", testCaseId);
         params.put("reportId", UUID.randomUUID().toString());
         params.put("runMode", runMode);
         params.put("testPlanId", testPlanId);
         params.put("triggerMode", "API");
-        call(ApiUrlConstants.API_DEFINITION_RUN, RequestMethod.POST, params);
-
+        return callAsync(ApiUrlConstants.API_DEFINITION_RUN, RequestMethod.POST, params, Object.class).thenApply(result -> null);
     }
 
     public String getDefinition(String id) {
-        if (id.equals("") || id == null) {
+        return await(getDefinitionAsync(id));
+    }
+
+    public CompletableFuture<String> getDefinitionAsync(String id) {
+        if (id == null || id.equals("")) {
             id = UUID.randomUUID().toString();
         }
-        ResultHolder result = call(ApiUrlConstants.API_DEFINITION + "/" + id.replace('"', ' ').trim());
-        String listJson = JSON.toJSONString(result.getData());
-        JSONObject jsonObject = JSONObject.parseObject(listJson);
-        return jsonObject.getString("status");
+        return callJsonAsync(ApiUrlConstants.API_DEFINITION + "/" + id.replace('"', ' ').trim())
+                .thenApply(result -> getDataString(result, "status"));
     }
 
     public String getShareInfo(Map<String, String> params) {
-        ResultHolder result = call(ApiUrlConstants.API_SHARE_GENERATE, RequestMethod.POST, params);
-        JSONObject jsonObject = JSONObject.parseObject(JSON.toJSONString(result.getData()));
-        return jsonObject.getString("shareUrl");
+        return await(getShareInfoAsync(params));
+    }
+
+    public CompletableFuture<String> getShareInfoAsync(Map<String, String> params) {
+        return callJsonAsync(ApiUrlConstants.API_SHARE_GENERATE, RequestMethod.POST, params)
+                .thenApply(result -> getDataString(result, "shareUrl"));
     }
 
     /*单独执行性能测试*/
     public String runPerformanceTest(String testCaseId, String testPlanId) {
+        return await(runPerformanceTestAsync(testCaseId, testPlanId));
+    }
+
+    public CompletableFuture<String> runPerformanceTestAsync(String testCaseId, String testPlanId) {
         HashMap<String, Object> params = new HashMap<>();
         params.put("id", testCaseId);
         params.put("testPlanLoadId", testCaseId);
         params.put("triggerMode", "API");
-        ResultHolder result;
-        result = call(ApiUrlConstants.PERFORMANCE_RUN, RequestMethod.POST, params);
-        String listJson = JSON.toJSONString(result.getData());
-        return listJson.replace('"', ' ').trim();
+        return this.<String>callAsync(ApiUrlConstants.PERFORMANCE_RUN, RequestMethod.POST, params, String.class)
+                .thenApply(result -> result.getData().replace('"', ' ').trim());
     }
 
     public void updateStateLoad(String testPlanId, String testCaseId, String state) {
+        await(updateStateLoadAsync(testPlanId, testCaseId, state));
+    }
+
+    public CompletableFuture<Void> updateStateLoadAsync(String testPlanId, String testCaseId, String state) {
         HashMap<String, Object> params = new HashMap<>();
         params.put("testPlanId", testPlanId);
         params.put("loadCaseId", testCaseId);
         params.put("status", state);
-        ResultHolder result;
-        result = call(ApiUrlConstants.PERFORMANCE_RUN_TEST_PLAN_STATE, RequestMethod.POST, params);
-        JSON.toJSONString(result.getData());
+        return callAsync(ApiUrlConstants.PERFORMANCE_RUN_TEST_PLAN_STATE, RequestMethod.POST, params, Object.class).thenApply(result -> null);
     }
 
     public String getPerformanceTestState(String testCaseId) {
-        ResultHolder result = call(ApiUrlConstants.PERFORMANCE_GET + "/" + testCaseId);
-        String listJson = JSON.toJSONString(result.getData());
-        JSONObject jsonObject = JSONObject.parseObject(listJson);
-        return jsonObject.getString("status");
+        return await(getPerformanceTestStateAsync(testCaseId));
+    }
+
+    public CompletableFuture<String> getPerformanceTestStateAsync(String testCaseId) {
+        return callJsonAsync(ApiUrlConstants.PERFORMANCE_GET + "/" + testCaseId)
+                .thenApply(result -> getDataString(result, "status"));
     }
 
     public void changeState(String id, String status) {
+        await(changeStateAsync(id, status));
+    }
+
+    public CompletableFuture<Void> changeStateAsync(String id, String status) {
         HashMap<String, Object> params = new HashMap<>();
         params.put("id", id);
         params.put("status", status);
-        call(ApiUrlConstants.CHANGE_STATE, RequestMethod.POST, params);
+        return callAsync(ApiUrlConstants.CHANGE_STATE, RequestMethod.POST, params, Object.class).thenApply(result -> null);
+    }
+
+    /*停止测试计划执行*/
+    public CompletableFuture<Void> stopTestPlanAsync(String reportId) {
+        return callAsync(ApiUrlConstants.TEST_PLAN_STOP + "/" + reportId, Object.class).thenApply(result -> null);
+    }
+
+    /*停止场景执行*/
+    public CompletableFuture<Void> stopScenarioAsync(String reportId) {
+        return callAsync(ApiUrlConstants.API_AUTOMATION_STOP + "/" + reportId, Object.class).thenApply(result -> null);
+    }
+
+    /*停止性能测试，不强制停止，已产生的结果仍会写入报告*/
+    public CompletableFuture<Void> stopPerformanceTestAsync(String reportId) {
+        return callAsync(ApiUrlConstants.PERFORMANCE_STOP + "/" + reportId + "/false", Object.class).thenApply(result -> null);
+    }
+
+    /*停止UI测试*/
+    public CompletableFuture<Void> stopUiTestAsync(String reportId) {
+        return callAsync(ApiUrlConstants.UI_STOP + "/" + reportId, Object.class).thenApply(result -> null);
     }
 
     /*查询站点*/
     public String getBaseInfo() {
-        BaseSystemConfigDTO baseSystemConfigDTO = new BaseSystemConfigDTO();
-        ResultHolder result = call(ApiUrlConstants.BASE_INFO);
-        String listJson = JSON.toJSONString(result.getData());
-        JSONObject jsonObject = JSONObject.parseObject(listJson);
-        return jsonObject.getString("url");
+        return await(getBaseInfoAsync());
     }
 
-    private ResultHolder call(String url) {
-        return call(url, RequestMethod.GET, null);
+    public CompletableFuture<String> getBaseInfoAsync() {
+        return session().baseUrl(() -> callJsonAsync(ApiUrlConstants.BASE_INFO).thenApply(result -> getDataString(result, "url")));
     }
 
-    private ResultHolder call(String url, RequestMethod requestMethod, Object params) {
+    private <T> ResultHolder<T> call(String url, Type dataType) {
+        return call(url, RequestMethod.GET, null, dataType);
+    }
+
+    /**
+     * 同步调用，响应流直接解码为 ResultHolder&lt;dataType&gt;，只解析一次
+     */
+    private <T> ResultHolder<T> call(String url, RequestMethod requestMethod, Object params, Type dataType) {
+        ClientMetrics.Request request = ClientMetrics.start(url);
         url = this.endpoint + url;
-        String responseJson;
+        ResultHolder<T> result;
 
-        HttpClientConfig config = auth();
-        if (requestMethod.equals(RequestMethod.GET)) {
-            responseJson = HttpClientUtil.get(url, config);
-        } else {
-            responseJson = HttpClientUtil.post(url, JSON.toJSONString(params), config);
+        HttpClientUtil.ResponseReader<ResultHolder<T>> reader = (response, charset) -> decode(response, charset, dataType);
+        try {
+            HttpClientConfig config = auth();
+            if (requestMethod.equals(RequestMethod.GET)) {
+                result = HttpClientUtil.get(url, config, reader);
+            } else {
+                result = HttpClientUtil.post(url, JSON.toJSONString(params), config, reader);
+            }
+        } catch (RuntimeException e) {
+            request.end(false);
+            if (MeterSphereAuthException.isCausedBy(e)) {
+                invalidateSession();
+            }
+            throw e;
         }
+        request.end(result != null && result.isSuccess());
+        return checkResult(result);
+    }
 
-        ResultHolder result = JSON.parseObject(responseJson, ResultHolder.class);
+    private <T> CompletableFuture<ResultHolder<T>> callAsync(String url, Type dataType) {
+        return callAsync(url, RequestMethod.GET, null, dataType);
+    }
+
+    /**
+     * 异步调用，请求在 I/O reactor 上完成，不占用调用线程
+     */
+    private <T> CompletableFuture<ResultHolder<T>> callAsync(String url, RequestMethod requestMethod, Object params, Type dataType) {
+        ClientMetrics.Request request = ClientMetrics.start(url);
+        url = this.endpoint + url;
+        CompletableFuture<ResultHolder<T>> response;
+        try {
+            HttpClientConfig config = auth();
+            HttpClientUtil.ResponseReader<ResultHolder<T>> reader = (httpResponse, charset) -> decode(httpResponse, charset, dataType);
+            if (requestMethod.equals(RequestMethod.GET)) {
+                response = HttpClientUtil.getAsync(url, config, reader);
+            } else {
+                response = HttpClientUtil.postAsync(url, JSON.toJSONString(params), config, reader);
+            }
+        } catch (Exception e) {
+            request.end(false);
+            CompletableFuture<ResultHolder<T>> failed = new CompletableFuture<>();
+            failed.completeExceptionally(e);
+            return failed;
+        }
+        response.whenComplete((r, e) -> {
+            if (response.isCancelled()) {
+                request.cancel();
+            } else {
+                request.end(e == null && r != null && r.isSuccess());
+            }
+            if (e != null && MeterSphereAuthException.isCausedBy(e)) {
+                invalidateSession();
+            }
+        });
+        return cancelling(response.thenApply(MeterSphereClient::checkResult), response);
+    }
+
+    /**
+     * 取消 downstream 时同时取消 upstream，使取消能传递到底层请求
+     */
+    private static <T> CompletableFuture<T> cancelling(CompletableFuture<T> downstream, CompletableFuture<?> upstream) {
+        downstream.whenComplete((r, e) -> {
+            if (downstream.isCancelled()) {
+                upstream.cancel(false);
+            }
+        });
+        return downstream;
+    }
+
+    private CompletableFuture<ResultHolder<JSONObject>> callJsonAsync(String url) {
+        return callAsync(url, RequestMethod.GET, null, JSONObject.class);
+    }
+
+    private CompletableFuture<ResultHolder<JSONObject>> callJsonAsync(String url, RequestMethod requestMethod, Object params) {
+        return callAsync(url, requestMethod, params, JSONObject.class);
+    }
+
+    private static <T> ResultHolder<T> decode(HttpResponse response, String charset, Type dataType) throws IOException {
+        int statusCode = response.getStatusLine().getStatusCode();
+        if (statusCode == HttpStatus.SC_UNAUTHORIZED || statusCode == HttpStatus.SC_FORBIDDEN) {
+            throw new MeterSphereAuthException("MeterSphere 认证失败: HTTP " + statusCode);
+        }
+        Type type = new ParameterizedTypeImpl(new Type[]{dataType}, null, ResultHolder.class);
+        try (InputStream in = response.getEntity().getContent()) {
+            return JSON.parseObject(in, Charset.forName(charset), type);
+        }
+    }
+
+    private static <T> ResultHolder<T> checkResult(ResultHolder<T> result) {
+        if (result == null) {
+            throw new MeterSphereException("MeterSphere 返回内容为空");
+        }
         if (!result.isSuccess()) {
             throw new MeterSphereException(result.getMessage());
         }
-        return JSON.parseObject(responseJson, ResultHolder.class);
+        return result;
+    }
+
+    private static Type listOf(Class<?> elementType) {
+        return new ParameterizedTypeImpl(new Type[]{elementType}, null, List.class);
+    }
+
+    private static String getDataString(ResultHolder<JSONObject> result, String key) {
+        return result.getData().getString(key);
+    }
+
+    /**
+     * 同步方法对异步调用的包装，异常按原样抛出
+     */
+    private static <T> T await(CompletableFuture<T> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new MeterSphereException(cause);
+        }
     }
 
     private HttpClientConfig auth() {
@@ -360,6 +674,32 @@ public class MeterSphereClient {
         return httpClientConfig;
     }
 
+    /**
+     * 校验 MeterSphere 回调的签名。
+     * 签名方式与请求签名相同（secretKey 为密钥、accessKey 为向量的 AES 加密），明文为 accessKey|reportId|status|时间戳
+     *
+     * @param maxSkewMillis 允许的时间戳误差
+     */
+    public boolean verifyCallback(String signature, String reportId, String status, long maxSkewMillis) {
+        if (StringUtils.isBlank(signature)) {
+            return false;
+        }
+        try {
+            String[] parts = aesDecrypt(signature, secretKey, accessKey).split("\\|", -1);
+            if (parts.length != 4) {
+                return false;
+            }
+            long timestamp = Long.parseLong(parts[3]);
+            return StringUtils.equals(parts[0], accessKey)
+                    && StringUtils.equals(parts[1], reportId)
+                    && StringUtils.equals(parts[2], status)
+                    && Math.abs(System.currentTimeMillis() - timestamp) <= maxSkewMillis;
+        } catch (Exception e) {
+            LogUtil.debug("回调签名校验失败: " + e.getMessage());
+            return false;
+        }
+    }
+
     private static String aesEncrypt(String src, String secretKey, String iv) throws Exception {
         byte[] raw = secretKey.getBytes(StandardCharsets.UTF_8);
         SecretKeySpec secretKeySpec = new SecretKeySpec(raw, "AES");
@@ -370,11 +710,24 @@ public class MeterSphereClient {
         return Base64.encodeBase64String(encrypted);
     }
 
+    private static String aesDecrypt(String src, String secretKey, String iv) throws Exception {
+        byte[] raw = secretKey.getBytes(StandardCharsets.UTF_8);
+        SecretKeySpec secretKeySpec = new SecretKeySpec(raw, "AES");
+        Cipher cipher = Cipher.getInstance("AES/CBC/PKCS5Padding");
+        IvParameterSpec iv1 = new IvParameterSpec(iv.getBytes());
+        cipher.init(Cipher.DECRYPT_MODE, secretKeySpec, iv1);
+        byte[] decrypted = cipher.doFinal(Base64.decodeBase64(src));
+        return new String(decrypted, StandardCharsets.UTF_8);
+    }
+
 
     public boolean checkLicense() {
-        ResultHolder result = call(ApiUrlConstants.API_LICENSE_VALIDATE);
-        JSONObject jsonObject = JSONObject.parseObject(JSONObject.toJSONString(result.getData()));
-        return StringUtils.equals("valid", jsonObject.getString("status"));
+        return await(checkLicenseAsync());
+    }
+
+    public CompletableFuture<Boolean> checkLicenseAsync() {
+        return session().license(() -> callJsonAsync(ApiUrlConstants.API_LICENSE_VALIDATE)
+                .thenApply(result -> StringUtils.equals("valid", getDataString(result, "status"))));
     }
 }
 
@@ -0,0 +1,80 @@
+package io.metersphere.client;
+
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * 自适应轮询间隔。
+ * 刚提交时快速轮询，之后按已运行时长的一定比例指数退避，并有上限；
+ * 同一个测试计划/用例有历史执行时长时，预计结束前按剩余时间逐步逼近，超过预计时间后再重新快速轮询。
+ */
+public class PollingPolicy {
+
+    // 最小轮询间隔，单位毫秒
+    private static final long MIN_DELAY_MILLIS = Long.getLong("io.metersphere.poll.minDelayMillis", 200L);
+    // 最大轮询间隔，单位毫秒
+    private static final long MAX_DELAY_MILLIS = Long.getLong("io.metersphere.poll.maxDelayMillis", 30000L);
+    // 退避系数：下次间隔为参考时长的该比例，相当于每次间隔按 1 + BACKOFF_RATIO 倍增长
+    private static final double BACKOFF_RATIO = 0.25;
+    // 历史执行时长的平滑系数
+    private static final double HISTORY_WEIGHT = 0.3;
+    // 最多记录的历史条数
+    private static final int MAX_HISTORY_SIZE = 10000;
+
+    private static final ConcurrentMap<String, Long> HISTORY = new ConcurrentHashMap<>();
+
+    /**
+     * 计算下一次轮询前的等待时间
+     *
+     * @param elapsedMillis  已运行时长
+     * @param expectedMillis 历史平均执行时长，没有历史时为null
+     * @return 等待时间，单位毫秒
+     */
+    public static long nextDelay(long elapsedMillis, Long expectedMillis) {
+        long delay;
+        if (expectedMillis == null) {
+            delay = (long) (elapsedMillis * BACKOFF_RATIO);
+        } else if (elapsedMillis < expectedMillis) {
+            // 预计还未结束，每次等待剩余时间的一半，越接近预计结束轮询越密
+            delay = (expectedMillis - elapsedMillis) / 2;
+        } else {
+            // 已超过预计时间，从预计结束时刻开始重新退避
+            delay = (long) ((elapsedMillis - expectedMillis) * BACKOFF_RATIO);
+        }
+        return Math.max(MIN_DELAY_MILLIS, Math.min(MAX_DELAY_MILLIS, delay));
+    }
+
+    public static long getMaxDelayMillis() {
+        return MAX_DELAY_MILLIS;
+    }
+
+    public static long initialDelay(Long expectedMillis) {
+        return nextDelay(0, expectedMillis);
+    }
+
+    /**
+     * 历史平均执行时长
+     */
+    public static Long expectedDuration(String historyKey) {
+        return historyKey == null ? null : HISTORY.get(historyKey);
+    }
+
+    /**
+     * 记录一次执行时长
+     */
+    public static void record(String historyKey, long durationMillis) {
+        if (historyKey == null || durationMillis <= 0) {
+            return;
+        }
+        if (HISTORY.size() >= MAX_HISTORY_SIZE && !HISTORY.containsKey(historyKey)) {
+            Iterator<String> iterator = HISTORY.keySet().iterator();
+            if (iterator.hasNext()) {
+                iterator.next();
+                iterator.remove();
+            }
+        }
+        HISTORY.merge(historyKey, durationMillis,
+                (old, current) -> (long) (old * (1 - HISTORY_WEIGHT) + current * HISTORY_WEIGHT));
+    }
+}
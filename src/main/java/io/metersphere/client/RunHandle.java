@@ -0,0 +1,55 @@
+package io.metersphere.client;
+
+import java.io.Serializable;
+
+/**
+ * 已提交到 MeterSphere 的一次执行，保存轮询状态和结束后处理所需的信息
+ */
+public class RunHandle implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private final RunType type;
+    // 查询状态使用的ID（报告ID或用例ID）
+    private final String pollId;
+    // 报告ID，没有报告时为null
+    private final String reportId;
+    // 被执行的测试计划/用例ID
+    private final String targetId;
+    private final String name;
+    // 所属测试计划ID，用于回写测试计划下的执行状态
+    private final String testPlanId;
+
+    public RunHandle(RunType type, String pollId, String reportId, String targetId, String name, String testPlanId) {
+        this.type = type;
+        this.pollId = pollId;
+        this.reportId = reportId == null ? null : reportId.replace("\"", "");
+        this.targetId = targetId;
+        this.name = name;
+        this.testPlanId = testPlanId;
+    }
+
+    public RunType getType() {
+        return type;
+    }
+
+    public String getPollId() {
+        return pollId;
+    }
+
+    public String getReportId() {
+        return reportId;
+    }
+
+    public String getTargetId() {
+        return targetId;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public String getTestPlanId() {
+        return testPlanId;
+    }
+}
@@ -0,0 +1,334 @@
+package io.metersphere.client;
+
+import com.alibaba.fastjson.JSON;
+import com.alibaba.fastjson.JSONObject;
+import hudson.init.InitMilestone;
+import hudson.init.Initializer;
+import hudson.model.Run;
+import hudson.util.Secret;
+import io.metersphere.commons.utils.LogUtil;
+import jenkins.model.Jenkins;
+import org.apache.commons.lang.StringUtils;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * 执行中报告的持久化登记。
+ * 以追加方式写入 JENKINS_HOME/metersphere/runs.journal，每行一条 start/end 记录，未结束的记录过多时压缩。
+ * Jenkins 启动时继续跟踪上次未结束的报告；报告仍在执行时，提交它的构建或重启后不久启动的同一任务的构建
+ * 再次执行同一测试时直接复用这些报告，不再重复提交。已结束的报告、仍在执行中的其他构建提交的报告不再复用。
+ * 记录按构建区分，同一测试被多个构建同时执行时互不覆盖；accessKey 与 secretKey 都加密保存。
+ */
+public class RunJournal {
+
+    private static final String JOURNAL_DIR = "metersphere";
+    private static final String JOURNAL_FILE = "runs.journal";
+    private static final String OP_START = "start";
+    private static final String OP_END = "end";
+    // 追加的结束记录达到该数量后压缩日志
+    private static final int COMPACT_THRESHOLD = 1000;
+    // 重启后该时长内启动的同一任务的构建可复用恢复的报告，单位毫秒
+    private static final long ADOPT_WINDOW_MILLIS = Long.getLong("io.metersphere.journal.adoptWindowMillis", 30 * 60000L);
+
+    private static final Object LOCK = new Object();
+    // 未结束的记录，由 LOCK 保护
+    private static final Map<String, JSONObject> LIVE = new LinkedHashMap<>();
+    private static int endedSinceCompact;
+    private static Writer writer;
+
+    // 重启前未结束、等待复用的报告，键为记录id
+    private static final ConcurrentMap<String, Recovered> RECOVERED = new ConcurrentHashMap<>();
+
+    /**
+     * 记录一次已提交的执行
+     */
+    public static void started(Run<?, ?> run, MeterSphereClient client, RunHandle handle) {
+        JSONObject record = new JSONObject(true);
+        record.put("op", OP_START);
+        String build = run == null ? null : run.getExternalizableId();
+        record.put("id", idOf(build, client, handle));
+        record.put("endpoint", client.getEndpoint());
+        record.put("accessKey", Secret.fromString(client.getAccessKey()).getEncryptedValue());
+        record.put("secretKey", Secret.fromString(client.getSecretKey()).getEncryptedValue());
+        record.put("type", handle.getType().name());
+        record.put("pollId", handle.getPollId());
+        record.put("reportId", handle.getReportId());
+        record.put("targetId", handle.getTargetId());
+        record.put("name", handle.getName());
+        record.put("testPlanId", handle.getTestPlanId());
+        record.put("build", build);
+        record.put("startTime", System.currentTimeMillis());
+        synchronized (LOCK) {
+            LIVE.put(record.getString("id"), record);
+            append(record);
+        }
+    }
+
+    /**
+     * 记录执行已结束
+     *
+     * @param run 提交该执行的构建，与 {@link #started} 相同
+     */
+    public static void ended(Run<?, ?> run, MeterSphereClient client, RunHandle handle) {
+        end(idOf(run == null ? null : run.getExternalizableId(), client, handle));
+    }
+
+    private static void end(String id) {
+        synchronized (LOCK) {
+            if (LIVE.remove(id) == null) {
+                return;
+            }
+            JSONObject record = new JSONObject(true);
+            record.put("op", OP_END);
+            record.put("id", id);
+            append(record);
+            if (++endedSinceCompact >= COMPACT_THRESHOLD) {
+                compact();
+            }
+        }
+    }
+
+    /**
+     * 同一个任务在重启前提交过同一测试且报告仍在执行时，返回该报告，调用方不再重复提交。
+     * 优先复用该构建自己提交的报告；其他构建提交的报告只有在该构建已不在执行、
+     * 且当前构建在重启后 {@link #ADOPT_WINDOW_MILLIS} 内启动时才能复用
+     */
+    public static RunHandle adopt(Run<?, ?> run, MeterSphereClient client, RunType type, String targetId) {
+        if (RECOVERED.isEmpty() || run == null) {
+            return null;
+        }
+        String build = run.getExternalizableId();
+        String key = adoptKey(jobOf(build), client.getEndpoint(), type, targetId);
+        Recovered candidate = null;
+        for (Recovered recovered : RECOVERED.values()) {
+            if (!recovered.key.equals(key)) {
+                continue;
+            }
+            if (StringUtils.equals(recovered.build, build)) {
+                candidate = recovered;
+                break;
+            }
+            if (candidate == null && run.getStartTimeInMillis() <= recovered.recoveredAt + ADOPT_WINDOW_MILLIS
+                    && !isBuilding(recovered.build)) {
+                candidate = recovered;
+            }
+        }
+        return candidate != null && RECOVERED.remove(candidate.id, candidate) ? candidate.handle : null;
+    }
+
+    /**
+     * Pipeline 步骤恢复时自行跟踪报告，不再供其他构建复用
+     */
+    public static void resumed(Run<?, ?> run, MeterSphereClient client, RunHandle handle) {
+        RECOVERED.remove(idOf(run == null ? null : run.getExternalizableId(), client, handle));
+    }
+
+    private static boolean isBuilding(String build) {
+        if (build == null) {
+            return false;
+        }
+        try {
+            Run<?, ?> owner = Run.fromExternalizableId(build);
+            return owner != null && owner.isBuilding();
+        } catch (RuntimeException e) {
+            // 任务已删除或改名
+            return false;
+        }
+    }
+
+    @Initializer(after = InitMilestone.JOB_LOADED)
+    public static void recover() {
+        File file = journalFile();
+        if (file == null || !file.exists()) {
+            return;
+        }
+        Map<String, JSONObject> live;
+        try (BufferedReader reader = Files.newBufferedReader(file.toPath(), StandardCharsets.UTF_8)) {
+            live = replay(reader);
+        } catch (IOException e) {
+            LogUtil.error("读取执行记录失败: " + file, e);
+            return;
+        }
+        synchronized (LOCK) {
+            LIVE.putAll(live);
+            compact();
+        }
+        for (JSONObject record : live.values()) {
+            resume(record);
+        }
+        LogUtil.info("恢复未结束的 MeterSphere 报告: " + live.size());
+    }
+
+    /**
+     * 按顺序读取 start/end 记录，返回未结束的记录，无法解析的行跳过
+     */
+    static Map<String, JSONObject> replay(BufferedReader reader) throws IOException {
+        Map<String, JSONObject> live = new LinkedHashMap<>();
+        String line;
+        while ((line = reader.readLine()) != null) {
+            JSONObject record;
+            try {
+                record = JSON.parseObject(line);
+            } catch (Exception e) {
+                // 异常退出时最后一行可能不完整
+                LogUtil.warn("忽略无法解析的执行记录: " + line);
+                continue;
+            }
+            if (record == null) {
+                continue;
+            }
+            if (OP_START.equals(record.getString("op"))) {
+                live.put(record.getString("id"), record);
+            } else {
+                live.remove(record.getString("id"));
+            }
+        }
+        return live;
+    }
+
+    private static void resume(JSONObject record) {
+        String secretKey = Secret.toString(Secret.decrypt(record.getString("secretKey")));
+        RunType type;
+        try {
+            type = RunType.valueOf(record.getString("type"));
+        } catch (Exception e) {
+            type = null;
+        }
+        if (StringUtils.isBlank(secretKey) || type == null) {
+            LogUtil.warn("无法恢复的执行记录: " + record.getString("id"));
+            return;
+        }
+        // 旧版本的记录中 accessKey 为明文，Secret.fromString 同样可以读取
+        String accessKey = Secret.toString(Secret.fromString(record.getString("accessKey")));
+        MeterSphereClient client = new MeterSphereClient(accessKey, secretKey, record.getString("endpoint"));
+        RunHandle handle = new RunHandle(type, record.getString("pollId"), record.getString("reportId"),
+                record.getString("targetId"), record.getString("name"), record.getString("testPlanId"));
+        String build = record.getString("build");
+        Recovered recovered = new Recovered(record.getString("id"), build,
+                adoptKey(jobOf(build), client.getEndpoint(), type, handle.getTargetId()), handle);
+        RECOVERED.put(recovered.id, recovered);
+
+        CompletableFuture<String> result = RunStatusScheduler.track(client, handle, null);
+        result.whenComplete((status, e) -> {
+            // 结束的报告不能交给之后的构建，否则会直接得到重启前的结果
+            RECOVERED.remove(recovered.id, recovered);
+            if (!(e instanceof CancellationException)) {
+                end(recovered.id);
+                LogUtil.info("重启前未结束的报告已结束: " + recovered.id + " " + (e == null ? status : e.getMessage()));
+            }
+        });
+    }
+
+    private static void append(JSONObject record) {
+        try {
+            if (writer == null) {
+                File file = journalFile();
+                if (file == null) {
+                    return;
+                }
+                Files.createDirectories(file.getParentFile().toPath());
+                writer = Files.newBufferedWriter(file.toPath(), StandardCharsets.UTF_8,
+                        StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+            }
+            writer.write(record.toJSONString());
+            writer.write('\n');
+            writer.flush();
+        } catch (IOException e) {
+            LogUtil.error("写入执行记录失败", e);
+            closeWriter();
+        }
+    }
+
+    /**
+     * 只保留未结束的记录，写入临时文件后替换
+     */
+    private static void compact() {
+        File file = journalFile();
+        if (file == null) {
+            return;
+        }
+        closeWriter();
+        File tmp = new File(file.getParentFile(), JOURNAL_FILE + ".tmp");
+        try {
+            Files.createDirectories(file.getParentFile().toPath());
+            try (Writer out = Files.newBufferedWriter(tmp.toPath(), StandardCharsets.UTF_8)) {
+                for (JSONObject record : LIVE.values()) {
+                    out.write(record.toJSONString());
+                    out.write('\n');
+                }
+            }
+            Files.move(tmp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            endedSinceCompact = 0;
+        } catch (IOException e) {
+            LogUtil.error("压缩执行记录失败", e);
+        }
+    }
+
+    private static void closeWriter() {
+        if (writer != null) {
+            try {
+                writer.close();
+            } catch (IOException e) {
+                LogUtil.warn("关闭执行记录失败", e);
+            }
+            writer = null;
+        }
+    }
+
+    private static File journalFile() {
+        Jenkins jenkins = Jenkins.getInstance();
+        return jenkins == null ? null : new File(new File(jenkins.getRootDir(), JOURNAL_DIR), JOURNAL_FILE);
+    }
+
+    /**
+     * 接口测试的 pollId 是用例ID，同一用例可能同时被多个构建执行，记录id中包含构建
+     */
+    static String idOf(String build, MeterSphereClient client, RunHandle handle) {
+        return client.getEndpoint() + "|" + handle.getType() + "|" + handle.getPollId() + "|" + build;
+    }
+
+    private static String adoptKey(String job, String endpoint, RunType type, String targetId) {
+        return job + "|" + endpoint + "|" + type + "|" + targetId;
+    }
+
+    /**
+     * 构建的外部ID格式为 任务全名#构建号
+     */
+    private static String jobOf(String build) {
+        if (build == null) {
+            return null;
+        }
+        int index = build.lastIndexOf('#');
+        return index < 0 ? build : build.substring(0, index);
+    }
+
+    private static class Recovered {
+        private final String id;
+        // 提交该报告的构建
+        private final String build;
+        // 任务、服务器、测试类型和测试
+        private final String key;
+        private final RunHandle handle;
+        private final long recoveredAt = System.currentTimeMillis();
+
+        Recovered(String id, String build, String key, RunHandle handle) {
+            this.id = id;
+            this.build = build;
+            this.key = key;
+            this.handle = handle;
+        }
+    }
+}
@@ -0,0 +1,307 @@
+package io.metersphere.client;
+
+import hudson.init.Terminator;
+import io.metersphere.commons.exception.RunTimeoutException;
+import io.metersphere.commons.utils.LogUtil;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+
+/**
+ * 全局共享的执行状态轮询调度器。
+ * 所有构建中未结束的报告都登记在这里，由少量定时线程发起异步状态查询，
+ * 查到结束状态后完成对应的 Future，等待中的构建不再各自占用线程 sleep 轮询。
+ * 同一个报告被多次登记时只轮询一次，轮询间隔由 {@link PollingPolicy} 决定。
+ * 服务器推送了执行结束回调时立即完成等待；服务器对某类测试推送过有效回调后，该类测试的轮询只作为低频兜底。
+ */
+public class RunStatusScheduler {
+
+    // 定时线程数，只负责发起异步请求，少量即可
+    private static final int WORKER_COUNT = Integer.getInteger("io.metersphere.poll.workers", 2);
+    // 查询持续失败超过该时长后放弃轮询，单位毫秒
+    private static final long MAX_ERROR_MILLIS = Long.getLong("io.metersphere.poll.maxErrorMillis", 300000L);
+    // 查询失败后的重试间隔，每次失败翻倍，不超过 PollingPolicy 的最大间隔，单位毫秒
+    private static final long ERROR_RETRY_DELAY_MILLIS = Long.getLong("io.metersphere.poll.errorRetryDelayMillis", 1000L);
+    // 服务器会推送回调时的兜底轮询间隔，单位毫秒
+    private static final long CALLBACK_FALLBACK_DELAY_MILLIS = Long.getLong("io.metersphere.callback.fallbackDelayMillis", 60000L);
+    // 服务器超过该时长没有推送该类测试的回调，恢复正常轮询，单位毫秒
+    private static final long CALLBACK_TRUST_MILLIS = Long.getLong("io.metersphere.callback.trustMillis", 3600000L);
+
+    private static final ScheduledExecutorService TIMER = Executors.newScheduledThreadPool(WORKER_COUNT, runnable -> {
+        Thread thread = new Thread(runnable, "MeterSphere-poll");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private static volatile boolean shuttingDown;
+
+    private static final ConcurrentMap<String, TrackedRun> RUNS = new ConcurrentHashMap<>();
+    // 按回调中的报告ID索引的执行
+    private static final ConcurrentMap<String, TrackedRun> CALLBACK_RUNS = new ConcurrentHashMap<>();
+    // 最近一次收到有效回调的时间，按服务器地址和测试类型记录；服务器可能只对部分类型的报告推送回调
+    private static final ConcurrentMap<String, Long> CALLBACK_SOURCES = new ConcurrentHashMap<>();
+
+    public enum CallbackResult {
+        ACCEPTED, UNKNOWN_REPORT, INVALID_SIGNATURE
+    }
+
+    /**
+     * 登记一个执行中的测试，返回在结束状态时完成的 Future。
+     * 取消返回的 Future 表示不再等待，没有其他等待方时停止轮询。
+     *
+     * @param client   查询状态使用的客户端
+     * @param handle   已提交的执行
+     * @param onStatus 每次查询到状态时的回调，可为null
+     * @return 结束状态
+     */
+    public static CompletableFuture<String> track(MeterSphereClient client, RunHandle handle, Consumer<String> onStatus) {
+        return track(client, handle, onStatus, 0);
+    }
+
+    /**
+     * 登记一个执行中的测试，超过等待时长后返回的 Future 以 {@link RunTimeoutException} 结束
+     *
+     * @param timeoutMillis 最长等待时长，不大于0时不限制
+     */
+    public static CompletableFuture<String> track(MeterSphereClient client, RunHandle handle, Consumer<String> onStatus,
+                                                  long timeoutMillis) {
+        RunType type = handle.getType();
+        String key = client.getEndpoint() + "|" + type + "|" + handle.getPollId();
+        String historyKey = handle.getTargetId() == null ? null : client.getEndpoint() + "|" + type + "|" + handle.getTargetId();
+        String callbackId = handle.getReportId() == null ? handle.getPollId() : handle.getReportId();
+        // 登记和取消登记都在 RUNS.compute 中进行，同一报告上的增减等待方互斥，
+        // 不会登记到最后一个等待方正在取消的执行上
+        TrackedRun run = RUNS.compute(key, (k, existing) -> {
+            if (existing != null && !existing.future.isDone()) {
+                existing.waiters++;
+                return existing;
+            }
+            return new TrackedRun(k, client, type, handle.getPollId(), callbackId, historyKey);
+        });
+        if (onStatus != null) {
+            run.listeners.add(onStatus);
+        }
+        if (run.started.compareAndSet(false, true)) {
+            if (callbackId != null) {
+                CALLBACK_RUNS.put(callbackId, run);
+            }
+            schedule(run, PollingPolicy.initialDelay(run.expectedMillis));
+        }
+
+        CompletableFuture<String> waiter = new CompletableFuture<>();
+        run.future.whenComplete((status, e) -> {
+            if (e != null) {
+                waiter.completeExceptionally(e);
+            } else {
+                waiter.complete(status);
+            }
+        });
+        ScheduledFuture<?> deadline = timeoutMillis <= 0 ? null : TIMER.schedule(
+                () -> waiter.completeExceptionally(new RunTimeoutException(
+                        run.type.getLabel() + "[" + run.pollId + "]超过" + (timeoutMillis + 59999) / 60000 + "分钟未结束")),
+                timeoutMillis, TimeUnit.MILLISECONDS);
+        waiter.whenComplete((status, e) -> {
+            if (deadline != null) {
+                deadline.cancel(false);
+            }
+            if (onStatus != null) {
+                run.listeners.remove(onStatus);
+            }
+            // 取消或超时，不再等待该报告，没有其他等待方时停止轮询
+            if (!run.future.isDone()) {
+                detach(run);
+            }
+        });
+        return waiter;
+    }
+
+    /**
+     * 减少一个等待方，最后一个等待方离开时取消登记并停止轮询
+     */
+    private static void detach(TrackedRun run) {
+        boolean[] last = {false};
+        RUNS.computeIfPresent(run.key, (k, current) -> {
+            if (current != run || --run.waiters > 0) {
+                return current;
+            }
+            last[0] = true;
+            return null;
+        });
+        if (last[0]) {
+            run.future.cancel(false);
+            unregister(run);
+        }
+    }
+
+    /**
+     * 处理服务器推送的执行状态回调
+     *
+     * @param reportId 报告ID（接口用例和性能测试也可以是用例ID）
+     * @param status   执行状态
+     * @param verifier 用登记时的客户端校验回调签名
+     */
+    public static CallbackResult onCallback(String reportId, String status, Predicate<MeterSphereClient> verifier) {
+        TrackedRun run = reportId == null ? null : CALLBACK_RUNS.get(reportId);
+        if (run == null || run.future.isDone()) {
+            return CallbackResult.UNKNOWN_REPORT;
+        }
+        if (!verifier.test(run.client)) {
+            return CallbackResult.INVALID_SIGNATURE;
+        }
+        CALLBACK_SOURCES.put(callbackSource(run.client, run.type), System.currentTimeMillis());
+        notifyListeners(run, status);
+        if (run.type.isTerminal(status)) {
+            finish(run, status, null);
+        }
+        return CallbackResult.ACCEPTED;
+    }
+
+    /**
+     * 当前登记中的报告数量，见 ${JENKINS_URL}/metersphere-metrics/
+     */
+    public static int getTrackedCount() {
+        return RUNS.size();
+    }
+
+    private static void schedule(TrackedRun run, long delayMillis) {
+        if (run.future.isDone()) {
+            unregister(run);
+            return;
+        }
+        if (isCallbackTrusted(run.client, run.type)) {
+            delayMillis = Math.max(delayMillis, CALLBACK_FALLBACK_DELAY_MILLIS);
+        }
+        TIMER.schedule(() -> poll(run), delayMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * 服务器最近是否推送过该类测试的有效回调
+     */
+    static boolean isCallbackTrusted(MeterSphereClient client, RunType type) {
+        Long lastCallback = CALLBACK_SOURCES.get(callbackSource(client, type));
+        return lastCallback != null && System.currentTimeMillis() - lastCallback < CALLBACK_TRUST_MILLIS;
+    }
+
+    private static String callbackSource(MeterSphereClient client, RunType type) {
+        return client.getEndpoint() + "|" + type;
+    }
+
+    private static void poll(TrackedRun run) {
+        if (run.future.isDone()) {
+            unregister(run);
+            return;
+        }
+        CompletableFuture<String> probe;
+        try {
+            probe = run.type.probe(run.client, run.pollId);
+        } catch (Exception e) {
+            probe = new CompletableFuture<>();
+            probe.completeExceptionally(e);
+        }
+        // 结果在 HTTP 客户端的解码线程上返回；状态回调会写控制台，结束处理会写执行记录，都转到定时线程上执行，不阻塞其他请求
+        probe.whenCompleteAsync((status, e) -> {
+            if (e != null) {
+                LogUtil.warn("查询执行状态失败: " + run.key, e);
+                long now = System.currentTimeMillis();
+                if (run.consecutiveErrors++ == 0) {
+                    run.failingSince = now;
+                } else if (now - run.failingSince >= MAX_ERROR_MILLIS) {
+                    finish(run, null, e);
+                    return;
+                }
+                // 服务器暂时不可用时按失败次数退避重试，直到持续失败超过 MAX_ERROR_MILLIS
+                schedule(run, errorRetryDelay(run.consecutiveErrors));
+                return;
+            }
+            run.consecutiveErrors = 0;
+            notifyListeners(run, status);
+            if (run.type.isTerminal(status)) {
+                finish(run, status, null);
+                return;
+            }
+            long elapsed = System.currentTimeMillis() - run.startedAt;
+            schedule(run, PollingPolicy.nextDelay(elapsed, run.expectedMillis));
+        }, TIMER);
+    }
+
+    static long errorRetryDelay(int consecutiveErrors) {
+        long delay = ERROR_RETRY_DELAY_MILLIS << Math.min(consecutiveErrors - 1, 16);
+        return Math.min(delay, PollingPolicy.getMaxDelayMillis());
+    }
+
+    private static void notifyListeners(TrackedRun run, String status) {
+        for (Consumer<String> listener : run.listeners) {
+            listener.accept(status);
+        }
+    }
+
+    private static void finish(TrackedRun run, String status, Throwable error) {
+        unregister(run);
+        if (error != null) {
+            run.future.completeExceptionally(error);
+        } else if (run.future.complete(status)) {
+            // 轮询和回调可能同时到达，只记录一次
+            PollingPolicy.record(run.historyKey, System.currentTimeMillis() - run.startedAt);
+        }
+    }
+
+    private static void unregister(TrackedRun run) {
+        RUNS.remove(run.key, run);
+        if (run.callbackId != null) {
+            CALLBACK_RUNS.remove(run.callbackId, run);
+        }
+    }
+
+    /**
+     * Jenkins 是否正在停止。停止时先执行各 {@link Terminator}，之后才中断执行器中的构建
+     */
+    public static boolean isShuttingDown() {
+        return shuttingDown;
+    }
+
+    @Terminator
+    public static void shutdown() {
+        shuttingDown = true;
+        TIMER.shutdownNow();
+    }
+
+    private static class TrackedRun {
+        private final String key;
+        private final MeterSphereClient client;
+        private final RunType type;
+        private final String pollId;
+        private final String callbackId;
+        private final String historyKey;
+        private final Long expectedMillis;
+        private final long startedAt = System.currentTimeMillis();
+        private final CompletableFuture<String> future = new CompletableFuture<>();
+        private final List<Consumer<String>> listeners = new CopyOnWriteArrayList<>();
+        private final AtomicBoolean started = new AtomicBoolean();
+        // 等待方数量，只在 RUNS.compute 中读写
+        private int waiters = 1;
+        // 只在轮询回调中读写，同一时刻只有一个轮询在进行
+        private volatile int consecutiveErrors;
+        // 本轮连续失败中第一次失败的时间
+        private volatile long failingSince;
+
+        TrackedRun(String key, MeterSphereClient client, RunType type, String pollId, String callbackId, String historyKey) {
+            this.key = key;
+            this.client = client;
+            this.type = type;
+            this.pollId = pollId;
+            this.callbackId = callbackId;
+            this.historyKey = historyKey;
+            this.expectedMillis = PollingPolicy.expectedDuration(historyKey);
+        }
+    }
+}
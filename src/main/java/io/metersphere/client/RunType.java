@@ -0,0 +1,147 @@
+package io.metersphere.client;
+
+import io.metersphere.commons.constants.Results;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * MeterSphere 中可轮询执行状态的测试类型，以及各自的状态查询方式和结束状态
+ */
+public enum RunType {
+    /*测试计划，按报告ID查询*/
+    TEST_PLAN(Arrays.asList(Results.SUCCESS, Results.COMPLETED), Arrays.asList(Results.FAILED),
+            "测试计划", "/#/track/testPlan/reportList?resourceId=", "PLAN_DB_REPORT", "/track/share-plan-report") {
+        @Override
+        public CompletableFuture<String> probe(MeterSphereClient client, String pollId) {
+            return client.getStatusAsync(pollId);
+        }
+
+        @Override
+        public CompletableFuture<Void> stop(MeterSphereClient client, String reportId) {
+            return client.stopTestPlanAsync(reportId);
+        }
+    },
+    /*场景测试，按报告ID查询*/
+    SCENARIO(Arrays.asList(Results.SUCCESS), Arrays.asList(Results.ERROR, Results.FAKE_ERROR),
+            "场景测试", "/#/api/automation/report/view/", "API_REPORT", "/api/share-api-report") {
+        @Override
+        public CompletableFuture<String> probe(MeterSphereClient client, String pollId) {
+            return client.getApiScenarioAsync(pollId);
+        }
+
+        @Override
+        public CompletableFuture<Void> stop(MeterSphereClient client, String reportId) {
+            return client.stopScenarioAsync(reportId);
+        }
+    },
+    /*接口用例，按用例ID查询最近一次执行结果*/
+    DEFINITION(Arrays.asList("success"), Arrays.asList("error", Results.FAKE_ERROR, "errorReportResult"),
+            "测试用例", null, null, null) {
+        @Override
+        public CompletableFuture<String> probe(MeterSphereClient client, String pollId) {
+            return client.getApiTestCaseReportAsync(pollId);
+        }
+    },
+    /*性能测试，按用例ID查询*/
+    PERFORMANCE(Arrays.asList(Results.COMPLETED), Arrays.asList(Results.ERROR),
+            "性能测试", "/#/performance/report/view/", "PERFORMANCE_REPORT", "/performance/share-report") {
+        @Override
+        public CompletableFuture<String> probe(MeterSphereClient client, String pollId) {
+            return client.getPerformanceTestStateAsync(pollId);
+        }
+
+        @Override
+        public CompletableFuture<Void> stop(MeterSphereClient client, String reportId) {
+            return client.stopPerformanceTestAsync(reportId);
+        }
+    },
+    /*UI测试，按报告ID查询*/
+    UI(Arrays.asList(Results.SUCCESS), Arrays.asList(Results.ERROR),
+            "UI测试", "/#/ui/report/view/", "UI_REPORT", "/ui/shareUiReport") {
+        @Override
+        public CompletableFuture<String> probe(MeterSphereClient client, String pollId) {
+            return client.getUiTestStateAsync(pollId);
+        }
+
+        @Override
+        public CompletableFuture<Void> stop(MeterSphereClient client, String reportId) {
+            return client.stopUiTestAsync(reportId);
+        }
+    };
+
+    private final List<String> successStates;
+    private final List<String> failureStates;
+    private final String label;
+    // 报告页面路径，为null时没有可查看的报告
+    private final String reportViewPath;
+    // 匿名分享报告的类型和路径
+    private final String shareType;
+    private final String sharePath;
+
+    RunType(List<String> successStates, List<String> failureStates, String label,
+            String reportViewPath, String shareType, String sharePath) {
+        this.successStates = successStates;
+        this.failureStates = failureStates;
+        this.label = label;
+        this.reportViewPath = reportViewPath;
+        this.shareType = shareType;
+        this.sharePath = sharePath;
+    }
+
+    /**
+     * 查询一次当前执行状态
+     */
+    public abstract CompletableFuture<String> probe(MeterSphereClient client, String pollId);
+
+    /**
+     * 停止 MeterSphere 上的执行
+     *
+     * @return 不支持停止时为null
+     */
+    public CompletableFuture<Void> stop(MeterSphereClient client, String reportId) {
+        return null;
+    }
+
+    public String getLabel() {
+        return label;
+    }
+
+    public String getReportViewPath() {
+        return reportViewPath;
+    }
+
+    public String getShareType() {
+        return shareType;
+    }
+
+    public String getSharePath() {
+        return sharePath;
+    }
+
+    public boolean isSuccess(String status) {
+        return matches(successStates, status);
+    }
+
+    public boolean isFailure(String status) {
+        return matches(failureStates, status);
+    }
+
+    public boolean isTerminal(String status) {
+        return isSuccess(status) || isFailure(status);
+    }
+
+    private static boolean matches(List<String> states, String status) {
+        if (status == null) {
+            return false;
+        }
+        String normalized = status.replace('"', ' ').trim();
+        for (String state : states) {
+            if (state.equalsIgnoreCase(normalized)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
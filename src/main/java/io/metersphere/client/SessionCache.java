@@ -0,0 +1,117 @@
+package io.metersphere.client;
+
+import org.apache.commons.codec.digest.DigestUtils;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
+
+/**
+ * 按 (endpoint, accessKey, secretKey摘要) 缓存构建过程中不会变化的会话信息：用户ID、站点地址、License 状态。
+ * 与 CatalogCache 一致，secretKey 错误的任务不会得到同一 accessKey 下其他任务缓存的信息。
+ * 缓存的是 Future，同一时刻的并发请求只会触发一次远程调用；加载失败不缓存。
+ * 账号数有上限，超过时丢弃最久未使用的；超过最长缓存时间未使用的账号一并移除。
+ */
+public class SessionCache {
+
+    // 用户ID缓存时间，单位毫秒
+    private static final long USER_TTL_MILLIS = Long.getLong("io.metersphere.session.userTtlMillis", 30 * 60 * 1000L);
+    // 站点地址缓存时间，单位毫秒
+    private static final long BASE_INFO_TTL_MILLIS = Long.getLong("io.metersphere.session.baseInfoTtlMillis", 60 * 60 * 1000L);
+    // License 状态缓存时间，单位毫秒
+    private static final long LICENSE_TTL_MILLIS = Long.getLong("io.metersphere.session.licenseTtlMillis", 10 * 60 * 1000L);
+
+    // 最多缓存的账号数
+    private static final int MAX_SESSIONS = Integer.getInteger("io.metersphere.session.maxEntries", 500);
+    // 超过该时长未使用的账号，缓存的信息都已过期
+    private static final long IDLE_MILLIS = Math.max(USER_TTL_MILLIS, Math.max(BASE_INFO_TTL_MILLIS, LICENSE_TTL_MILLIS));
+
+    // 按访问顺序排列，由自身加锁保护
+    private static final Map<String, Session> SESSIONS = new LinkedHashMap<String, Session>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Session> eldest) {
+            return size() > MAX_SESSIONS;
+        }
+    };
+
+    public static Session get(String endpoint, String accessKey, String secretKey) {
+        long now = System.currentTimeMillis();
+        synchronized (SESSIONS) {
+            Session session = SESSIONS.computeIfAbsent(key(endpoint, accessKey, secretKey), k -> new Session());
+            session.lastUsedAt = now;
+            // 最久未使用的在前，遇到未过期的即停止
+            for (Iterator<Session> iterator = SESSIONS.values().iterator(); iterator.hasNext(); ) {
+                if (now - iterator.next().lastUsedAt <= IDLE_MILLIS) {
+                    break;
+                }
+                iterator.remove();
+            }
+            return session;
+        }
+    }
+
+    /**
+     * 认证失败时调用，丢弃该账号下所有缓存的会话信息
+     */
+    public static void invalidate(String endpoint, String accessKey, String secretKey) {
+        synchronized (SESSIONS) {
+            SESSIONS.remove(key(endpoint, accessKey, secretKey));
+        }
+    }
+
+    private static String key(String endpoint, String accessKey, String secretKey) {
+        return endpoint + "|" + accessKey + "|" + DigestUtils.sha256Hex(String.valueOf(secretKey));
+    }
+
+    public static class Session {
+        private final Entry<String> userId = new Entry<>(USER_TTL_MILLIS);
+        private final Entry<String> baseUrl = new Entry<>(BASE_INFO_TTL_MILLIS);
+        private final Entry<Boolean> license = new Entry<>(LICENSE_TTL_MILLIS);
+        private long lastUsedAt;
+
+        public CompletableFuture<String> userId(Supplier<CompletableFuture<String>> loader) {
+            return userId.get(loader);
+        }
+
+        public CompletableFuture<String> baseUrl(Supplier<CompletableFuture<String>> loader) {
+            return baseUrl.get(loader);
+        }
+
+        public CompletableFuture<Boolean> license(Supplier<CompletableFuture<Boolean>> loader) {
+            return license.get(loader);
+        }
+    }
+
+    private static class Entry<T> {
+        private final long ttlMillis;
+        private CompletableFuture<T> value;
+        private long expiresAt;
+
+        Entry(long ttlMillis) {
+            this.ttlMillis = ttlMillis;
+        }
+
+        synchronized CompletableFuture<T> get(Supplier<CompletableFuture<T>> loader) {
+            if (value != null && System.currentTimeMillis() < expiresAt && !value.isCompletedExceptionally()) {
+                return value;
+            }
+            CompletableFuture<T> loading = loader.get();
+            value = loading;
+            expiresAt = System.currentTimeMillis() + ttlMillis;
+            loading.whenComplete((v, e) -> {
+                if (e != null) {
+                    clear(loading);
+                }
+            });
+            return loading;
+        }
+
+        private synchronized void clear(CompletableFuture<T> failed) {
+            if (value == failed) {
+                value = null;
+            }
+        }
+    }
+}
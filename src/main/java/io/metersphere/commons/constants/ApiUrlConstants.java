@@ -29,5 +29,9 @@ public class ApiUrlConstants {
     public static final String TEST_POOL = "/setting/testresourcepool/list/quota/valid";
     public static final String TEST_PLAN = "/track/test/plan/run";//测试计划执行
     public static final String TEST_PLAN_STATUS = "/track/test/plan/report/status";//测试计划执行
+    public static final String TEST_PLAN_STOP = "/track/test/plan/report/stop";//停止测试计划执行
+    public static final String API_AUTOMATION_STOP = "/api/api/automation/stop";//停止场景执行
+    public static final String PERFORMANCE_STOP = "/performance/performance/stop";//停止性能测试
+    public static final String UI_STOP = "/ui/ui/automation/stop";//停止UI测试
 
 }
@@ -0,0 +1,29 @@
+package io.metersphere.commons.exception;
+
+/**
+ * MeterSphere 认证失败（AccessKey/SecretKey 无效或已失效）
+ */
+public class MeterSphereAuthException extends MeterSphereException {
+    private static final long serialVersionUID = 5630172046153812744L;
+
+    public MeterSphereAuthException(String message) {
+        super(message);
+    }
+
+    public MeterSphereAuthException(String message, Throwable cause) {
+        super(message, cause);
+    }
+
+    /**
+     * 判断异常链中是否包含认证失败
+     */
+    public static boolean isCausedBy(Throwable e) {
+        while (e != null) {
+            if (e instanceof MeterSphereAuthException) {
+                return true;
+            }
+            e = e.getCause();
+        }
+        return false;
+    }
+}
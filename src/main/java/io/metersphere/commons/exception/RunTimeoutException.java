@@ -0,0 +1,12 @@
+package io.metersphere.commons.exception;
+
+/**
+ * 等待 MeterSphere 执行结束超时
+ */
+public class RunTimeoutException extends MeterSphereException {
+    private static final long serialVersionUID = -3320946578391164027L;
+
+    public RunTimeoutException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,245 @@
+package io.metersphere.commons.model;
+
+import java.util.AbstractList;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.RandomAccess;
+import java.util.UUID;
+
+/**
+ * 按列保存的只读测试列表，用于长时间缓存大量测试。
+ * ID和名称连续存放在一个字符数组中，小写标准格式的UUID作为ID时按两个long保存；项目、类型、版本的取值很少，按字典编码保存。
+ * 读取时按需生成 TestCaseDTO，修改生成的对象不影响列表；只需要某一列时用 getId(int) 等方法直接读取，
+ * 比较时用 idEquals 等方法直接与存储比较，不生成对象。
+ */
+public final class CompactTestCaseList extends AbstractList<TestCaseDTO> implements RandomAccess {
+
+    private final int size;
+    // 第 i 个测试的ID为 chars[offsets[2i], offsets[2i+1])，名称为 chars[offsets[2i+1], offsets[2i+2])
+    private final char[] chars;
+    private final int[] offsets;
+    // ID、名称为null的位置，分别为 2i 和 2i+1
+    private final BitSet nulls;
+    // ID为UUID的位置，此时ID不在字符数组中
+    private final BitSet uuids;
+    private final long[] uuidHigh;
+    private final long[] uuidLow;
+    // 项目、类型、版本共用的字典，编码为-1表示null
+    private final String[] dictionary;
+    private final int[] projectIds;
+    private final int[] types;
+    private final int[] versionNames;
+
+    private CompactTestCaseList(int size, char[] chars, int[] offsets, BitSet nulls, BitSet uuids, long[] uuidHigh,
+                                long[] uuidLow, String[] dictionary, int[] projectIds, int[] types, int[] versionNames) {
+        this.size = size;
+        this.chars = chars;
+        this.offsets = offsets;
+        this.nulls = nulls;
+        this.uuids = uuids;
+        this.uuidHigh = uuidHigh;
+        this.uuidLow = uuidLow;
+        this.dictionary = dictionary;
+        this.projectIds = projectIds;
+        this.types = types;
+        this.versionNames = versionNames;
+    }
+
+    public static CompactTestCaseList of(List<TestCaseDTO> testCases) {
+        if (testCases instanceof CompactTestCaseList) {
+            return (CompactTestCaseList) testCases;
+        }
+        int size = testCases.size();
+        int length = 0;
+        BitSet uuids = new BitSet();
+        for (int i = 0; i < size; i++) {
+            TestCaseDTO testCase = testCases.get(i);
+            if (isUuid(testCase.getId())) {
+                uuids.set(i);
+            } else {
+                length += lengthOf(testCase.getId());
+            }
+            length += lengthOf(testCase.getName());
+        }
+        long[] uuidHigh = uuids.isEmpty() ? null : new long[size];
+        long[] uuidLow = uuids.isEmpty() ? null : new long[size];
+        char[] chars = new char[length];
+        int[] offsets = new int[2 * size + 1];
+        BitSet nulls = new BitSet();
+        Map<String, Integer> codes = new HashMap<>();
+        int[] projectIds = new int[size];
+        int[] types = new int[size];
+        int[] versionNames = new int[size];
+        int position = 0;
+        for (int i = 0; i < size; i++) {
+            TestCaseDTO testCase = testCases.get(i);
+            offsets[2 * i] = position;
+            if (uuids.get(i)) {
+                UUID uuid = UUID.fromString(testCase.getId());
+                uuidHigh[i] = uuid.getMostSignificantBits();
+                uuidLow[i] = uuid.getLeastSignificantBits();
+            } else {
+                position = append(chars, position, testCase.getId(), nulls, 2 * i);
+            }
+            offsets[2 * i + 1] = position;
+            position = append(chars, position, testCase.getName(), nulls, 2 * i + 1);
+            projectIds[i] = encode(codes, testCase.getProjectId());
+            types[i] = encode(codes, testCase.getType());
+            versionNames[i] = encode(codes, testCase.getVersionName());
+        }
+        offsets[2 * size] = position;
+        String[] dictionary = new String[codes.size()];
+        codes.forEach((value, code) -> dictionary[code] = value);
+        return new CompactTestCaseList(size, chars, offsets, nulls, uuids, uuidHigh, uuidLow, dictionary, projectIds, types, versionNames);
+    }
+
+    @Override
+    public TestCaseDTO get(int index) {
+        checkIndex(index);
+        TestCaseDTO testCase = new TestCaseDTO();
+        testCase.setId(uuids.get(index) ? new UUID(uuidHigh[index], uuidLow[index]).toString() : string(2 * index));
+        testCase.setName(string(2 * index + 1));
+        testCase.setProjectId(decode(projectIds[index]));
+        testCase.setType(decode(types[index]));
+        testCase.setVersionName(decode(versionNames[index]));
+        return testCase;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    public String getId(int index) {
+        checkIndex(index);
+        return uuids.get(index) ? new UUID(uuidHigh[index], uuidLow[index]).toString() : string(2 * index);
+    }
+
+    public String getName(int index) {
+        checkIndex(index);
+        return string(2 * index + 1);
+    }
+
+    public String getType(int index) {
+        checkIndex(index);
+        return decode(types[index]);
+    }
+
+    public String getVersionName(int index) {
+        checkIndex(index);
+        return decode(versionNames[index]);
+    }
+
+    public boolean hasName(int index) {
+        checkIndex(index);
+        return !nulls.get(2 * index + 1);
+    }
+
+    /**
+     * 第 index 个测试的ID是否与 value 相同
+     */
+    public boolean idEquals(int index, String value) {
+        checkIndex(index);
+        if (!uuids.get(index)) {
+            return regionEquals(2 * index, value, 0, value == null ? 0 : value.length());
+        }
+        return isUuid(value) && hexBits(value, 0, 18) == uuidHigh[index] && hexBits(value, 19, 36) == uuidLow[index];
+    }
+
+    /**
+     * 第 index 个测试的名称是否与 value 中 [from, to) 的部分相同；名称为null时与 "null" 比较，与字符串拼接的结果一致
+     */
+    public boolean nameEquals(int index, String value, int from, int to) {
+        checkIndex(index);
+        if (nulls.get(2 * index + 1)) {
+            return to - from == 4 && value.startsWith("null", from);
+        }
+        return regionEquals(2 * index + 1, value, from, to);
+    }
+
+    private void checkIndex(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+        }
+    }
+
+    private String string(int column) {
+        if (nulls.get(column)) {
+            return null;
+        }
+        return new String(chars, offsets[column], offsets[column + 1] - offsets[column]);
+    }
+
+    private boolean regionEquals(int column, String value, int from, int to) {
+        if (value == null || nulls.get(column)) {
+            return value == null && nulls.get(column);
+        }
+        int start = offsets[column];
+        if (offsets[column + 1] - start != to - from) {
+            return false;
+        }
+        for (int i = from; i < to; i++) {
+            if (chars[start + i - from] != value.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 把 UUID 字符串中 [from, to) 部分的十六进制数字（跳过连字符）转为 long，与 UUID 的高、低64位对应
+     */
+    private static long hexBits(String value, int from, int to) {
+        long bits = 0;
+        for (int i = from; i < to; i++) {
+            char c = value.charAt(i);
+            if (c != '-') {
+                bits = bits << 4 | Character.digit(c, 16);
+            }
+        }
+        return bits;
+    }
+
+    private String decode(int code) {
+        return code < 0 ? null : dictionary[code];
+    }
+
+    /**
+     * 只接受 UUID.toString() 的格式，保证还原后与原值相同
+     */
+    private static boolean isUuid(String value) {
+        if (value == null || value.length() != 36) {
+            return false;
+        }
+        for (int i = 0; i < 36; i++) {
+            char c = value.charAt(i);
+            if (i == 8 || i == 13 || i == 18 || i == 23) {
+                if (c != '-') {
+                    return false;
+                }
+            } else if (!(c >= '0' && c <= '9' || c >= 'a' && c <= 'f')) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int lengthOf(String value) {
+        return value == null ? 0 : value.length();
+    }
+
+    private static int append(char[] chars, int position, String value, BitSet nulls, int column) {
+        if (value == null) {
+            nulls.set(column);
+            return position;
+        }
+        value.getChars(0, value.length(), chars, position);
+        return position + value.length();
+    }
+
+    private static int encode(Map<String, Integer> codes, String value) {
+        return value == null ? -1 : codes.computeIfAbsent(value, v -> codes.size());
+    }
+}
@@ -0,0 +1,91 @@
+package io.metersphere.commons.utils;
+
+import hudson.model.Run;
+import io.metersphere.client.MeterSphereClient;
+
+import java.io.PrintStream;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 一个构建步骤的执行上下文：控制台输出、客户端、构建、报告打开方式、等待上限和执行统计。
+ * 在提交、跟踪、结束处理的方法间传递，同一 JVM 中并发执行的构建各自输出到自己的控制台。
+ */
+public class ExecutionContext {
+
+    private static final String LOG_PREFIX = "[MeterSphere，代码测试]";
+
+    private final PrintStream logger;
+    private final MeterSphereClient client;
+    private final Run<?, ?> run;
+    private final Integer timeoutMinutes;
+    private final long startedAt = System.currentTimeMillis();
+    private final AtomicInteger submitted = new AtomicInteger();
+    private final AtomicInteger passed = new AtomicInteger();
+    private final AtomicInteger failed = new AtomicInteger();
+    // 没有 License 时改为 auth
+    private volatile String openMode;
+
+    /**
+     * @param run            所属构建，重启后恢复跟踪时可以为null
+     * @param timeoutMinutes 单个测试的最长等待时长，为null或不大于0时使用默认值
+     */
+    public ExecutionContext(PrintStream logger, MeterSphereClient client, Run<?, ?> run, String openMode, Integer timeoutMinutes) {
+        this.logger = logger;
+        this.client = client;
+        this.run = run;
+        this.openMode = openMode;
+        this.timeoutMinutes = timeoutMinutes;
+    }
+
+    public void log(String msg) {
+        logger.println(LOG_PREFIX + msg);
+    }
+
+    public PrintStream getLogger() {
+        return logger;
+    }
+
+    public MeterSphereClient getClient() {
+        return client;
+    }
+
+    public Run<?, ?> getRun() {
+        return run;
+    }
+
+    public Integer getTimeoutMinutes() {
+        return timeoutMinutes;
+    }
+
+    public String getOpenMode() {
+        return openMode;
+    }
+
+    public void setOpenMode(String openMode) {
+        this.openMode = openMode;
+    }
+
+    void recordSubmitted() {
+        submitted.incrementAndGet();
+    }
+
+    void recordFinished(boolean success) {
+        (success ? passed : failed).incrementAndGet();
+    }
+
+    public int getSubmitted() {
+        return submitted.get();
+    }
+
+    public int getPassed() {
+        return passed.get();
+    }
+
+    public int getFailed() {
+        return failed.get();
+    }
+
+    public long getElapsedMillis() {
+        return System.currentTimeMillis() - startedAt;
+    }
+}
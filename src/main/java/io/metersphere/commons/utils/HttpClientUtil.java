@@ -1,21 +1,44 @@
 package io.metersphere.commons.utils;
 
+import hudson.init.Terminator;
 import org.apache.http.HttpEntity;
 import org.apache.http.HttpResponse;
 import org.apache.http.NameValuePair;
 import org.apache.http.client.entity.EntityBuilder;
 import org.apache.http.client.entity.UrlEncodedFormEntity;
+import org.apache.http.client.methods.CloseableHttpResponse;
 import org.apache.http.client.methods.HttpGet;
 import org.apache.http.client.methods.HttpPost;
+import org.apache.http.client.methods.HttpRequestBase;
+import org.apache.http.client.methods.HttpUriRequest;
+import org.apache.http.config.Registry;
+import org.apache.http.config.RegistryBuilder;
+import org.apache.http.conn.socket.ConnectionSocketFactory;
+import org.apache.http.conn.socket.PlainConnectionSocketFactory;
+import org.apache.http.concurrent.FutureCallback;
 import org.apache.http.conn.ssl.NoopHostnameVerifier;
+import org.apache.http.conn.ssl.SSLConnectionSocketFactory;
 import org.apache.http.conn.ssl.TrustSelfSignedStrategy;
 import org.apache.http.conn.ssl.TrustStrategy;
+import org.apache.http.entity.ByteArrayEntity;
 import org.apache.http.entity.ContentType;
 import org.apache.http.impl.client.CloseableHttpClient;
-import org.apache.http.impl.client.HttpClientBuilder;
+import org.apache.http.impl.client.DefaultConnectionKeepAliveStrategy;
 import org.apache.http.impl.client.HttpClients;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.apache.http.impl.nio.client.CloseableHttpAsyncClient;
+import org.apache.http.impl.nio.client.HttpAsyncClients;
+import org.apache.http.impl.nio.conn.PoolingNHttpClientConnectionManager;
+import org.apache.http.impl.nio.reactor.DefaultConnectingIOReactor;
+import org.apache.http.impl.nio.reactor.IOReactorConfig;
 import org.apache.http.message.BasicNameValuePair;
+import org.apache.http.nio.conn.NoopIOSessionStrategy;
+import org.apache.http.nio.conn.SchemeIOSessionStrategy;
+import org.apache.http.nio.conn.ssl.SSLIOSessionStrategy;
+import org.apache.http.pool.ConnPoolControl;
+import org.apache.http.pool.PoolStats;
 import org.apache.http.protocol.HTTP;
+import org.apache.http.protocol.HttpContext;
 import org.apache.http.ssl.SSLContexts;
 import org.apache.http.util.EntityUtils;
 import org.slf4j.Logger;
@@ -23,9 +46,24 @@ import org.slf4j.LoggerFactory;
 
 import javax.net.ssl.HostnameVerifier;
 import javax.net.ssl.SSLContext;
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.URI;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
 
 public class HttpClientUtil {
 
@@ -34,28 +72,238 @@ public class HttpClientUtil {
     private static final String HTTPS = "https";
 
     /**
-     * 根据url构建HttpClient（区分http和https）
+     * 响应体读取方式，可直接从响应流解码为目标类型，避免先转成字符串
+     *
+     * @param <T> 读取结果类型
+     */
+    public interface ResponseReader<T> {
+        T read(HttpResponse response, String charset) throws IOException;
+    }
+
+    private static String readString(HttpResponse response, String charset) throws IOException {
+        return EntityUtils.toString(response.getEntity(), charset);
+    }
+
+    // 连接池总连接数上限
+    private static final int MAX_TOTAL = Integer.getInteger("io.metersphere.http.maxTotal", 200);
+    // 每个路由（同一个 MeterSphere 地址）的最大连接数
+    private static final int MAX_PER_ROUTE = Integer.getInteger("io.metersphere.http.maxPerRoute", 50);
+    // 服务端未声明 Keep-Alive 时长时，连接最多保持的时间，单位毫秒
+    private static final long KEEP_ALIVE_MILLIS = Long.getLong("io.metersphere.http.keepAliveMillis", 30000L);
+    // 空闲连接被回收前的最长空闲时间，单位毫秒
+    private static final long MAX_IDLE_MILLIS = Long.getLong("io.metersphere.http.maxIdleMillis", 60000L);
+    // 连接空闲超过该时间后，再次使用前先做校验，单位毫秒
+    private static final int VALIDATE_AFTER_INACTIVITY_MILLIS = 2000;
+
+    // 异步客户端 I/O 线程数，少量线程即可承载大量并发请求
+    private static final int IO_THREAD_COUNT = Integer.getInteger("io.metersphere.http.ioThreads", 2);
+    // 解码异步响应的线程数，大的列表解码较慢，不在 I/O 线程上进行
+    private static final int DECODE_THREAD_COUNT = Integer.getInteger("io.metersphere.http.decodeThreads", 4);
+
+    private static final AtomicInteger DECODE_THREAD_NUMBER = new AtomicInteger();
+    private static final ExecutorService DECODER = Executors.newFixedThreadPool(DECODE_THREAD_COUNT, runnable -> {
+        Thread thread = new Thread(runnable, "MeterSphere-http-decode-" + DECODE_THREAD_NUMBER.incrementAndGet());
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    // 回收异步连接池中过期和空闲的连接，与同步连接池的 evictIdleConnections 相同
+    private static final ScheduledExecutorService EVICTOR = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "MeterSphere-http-evictor");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /**
+     * 每个 MeterSphere 地址（scheme://host:port）共用一个长连接池化的 HttpClient
+     */
+    private static final ConcurrentMap<String, CloseableHttpClient> CLIENTS = new ConcurrentHashMap<>();
+
+    /**
+     * 每个 MeterSphere 地址共用一个基于 I/O reactor 的异步 HttpClient
+     */
+    private static final ConcurrentMap<String, CloseableHttpAsyncClient> ASYNC_CLIENTS = new ConcurrentHashMap<>();
+
+    /**
+     * 各地址的同步、异步连接池，用于查询连接数
+     */
+    private static final ConcurrentMap<String, ConnPoolControl<?>> POOLS = new ConcurrentHashMap<>();
+    private static final ConcurrentMap<String, ConnPoolControl<?>> ASYNC_POOLS = new ConcurrentHashMap<>();
+
+    // 当前线程上执行的同步请求登记到的中止句柄，见 abortable
+    private static final ThreadLocal<Abortable> ABORTABLE = new ThreadLocal<>();
+
+    /**
+     * https 的 SSL 上下文只构建一次，所有连接池共用
+     */
+    private static volatile SSLContext sslContext;
+    private static volatile SSLConnectionSocketFactory sslSocketFactory;
+
+    /**
+     * 根据url获取共享的HttpClient（按地址区分连接池）
      *
      * @param url 请求地址
+     * @return CloseableHttpClient实例，调用方不可关闭
+     */
+    private static CloseableHttpClient getHttpClient(String url) {
+        return CLIENTS.computeIfAbsent(routeKey(url), HttpClientUtil::buildHttpClient);
+    }
+
+    private static String routeKey(String url) {
+        URI uri = URI.create(url);
+        return uri.getScheme() + "://" + uri.getAuthority();
+    }
+
+    /**
+     * 构建带连接池、Keep-Alive 和空闲回收的HttpClient（同时支持http和https）
+     *
      * @return CloseableHttpClient实例
      */
-    private static CloseableHttpClient buildHttpClient(String url) {
+    private static CloseableHttpClient buildHttpClient(String route) {
         try {
-            if (url.startsWith(HTTPS)) {
-                // https 增加信任设置
-                TrustStrategy trustStrategy = new TrustSelfSignedStrategy();
-                SSLContext sslContext = SSLContexts.custom().loadTrustMaterial(trustStrategy).build();
-                HostnameVerifier hostnameVerifier = NoopHostnameVerifier.INSTANCE;
-                return HttpClients.custom().setSSLContext(sslContext).setSSLHostnameVerifier(hostnameVerifier).build();
-            } else {
-                // http
-                return HttpClientBuilder.create().build();
-            }
+            Registry<ConnectionSocketFactory> registry = RegistryBuilder.<ConnectionSocketFactory>create()
+                    .register("http", PlainConnectionSocketFactory.getSocketFactory())
+                    .register(HTTPS, getSslSocketFactory())
+                    .build();
+            PoolingHttpClientConnectionManager connectionManager = new PoolingHttpClientConnectionManager(registry);
+            connectionManager.setMaxTotal(MAX_TOTAL);
+            connectionManager.setDefaultMaxPerRoute(MAX_PER_ROUTE);
+            connectionManager.setValidateAfterInactivity(VALIDATE_AFTER_INACTIVITY_MILLIS);
+            POOLS.put(route, connectionManager);
+            return HttpClients.custom()
+                    .setConnectionManager(connectionManager)
+                    .setKeepAliveStrategy(HttpClientUtil::getKeepAliveDuration)
+                    .evictExpiredConnections()
+                    .evictIdleConnections(MAX_IDLE_MILLIS, TimeUnit.MILLISECONDS)
+                    .build();
         } catch (Exception e) {
             throw new RuntimeException("HttpClient构建失败", e);
         }
     }
 
+    private static long getKeepAliveDuration(HttpResponse response, HttpContext context) {
+        long duration = DefaultConnectionKeepAliveStrategy.INSTANCE.getKeepAliveDuration(response, context);
+        return duration > 0 ? Math.min(duration, KEEP_ALIVE_MILLIS) : KEEP_ALIVE_MILLIS;
+    }
+
+    /**
+     * 根据url获取共享的异步HttpClient（按地址区分连接池）
+     *
+     * @param url 请求地址
+     * @return 已启动的CloseableHttpAsyncClient实例，调用方不可关闭
+     */
+    private static CloseableHttpAsyncClient getAsyncHttpClient(String url) {
+        return ASYNC_CLIENTS.computeIfAbsent(routeKey(url), HttpClientUtil::buildAsyncHttpClient);
+    }
+
+    private static CloseableHttpAsyncClient buildAsyncHttpClient(String route) {
+        try {
+            IOReactorConfig ioReactorConfig = IOReactorConfig.custom()
+                    .setIoThreadCount(IO_THREAD_COUNT)
+                    .setSoKeepAlive(true)
+                    .build();
+            // 显式创建连接池，以便查询连接数
+            Registry<SchemeIOSessionStrategy> registry = RegistryBuilder.<SchemeIOSessionStrategy>create()
+                    .register("http", NoopIOSessionStrategy.INSTANCE)
+                    .register(HTTPS, new SSLIOSessionStrategy(getSslContext(), NoopHostnameVerifier.INSTANCE))
+                    .build();
+            PoolingNHttpClientConnectionManager connectionManager = new PoolingNHttpClientConnectionManager(
+                    new DefaultConnectingIOReactor(ioReactorConfig, HttpClientUtil::newIoThread), registry);
+            connectionManager.setMaxTotal(MAX_TOTAL);
+            connectionManager.setDefaultMaxPerRoute(MAX_PER_ROUTE);
+            CloseableHttpAsyncClient httpClient = HttpAsyncClients.custom()
+                    .setConnectionManager(connectionManager)
+                    .setKeepAliveStrategy(HttpClientUtil::getKeepAliveDuration)
+                    .build();
+            httpClient.start();
+            ASYNC_POOLS.put(route, connectionManager);
+            EVICTOR.scheduleWithFixedDelay(() -> evictIdle(connectionManager),
+                    MAX_IDLE_MILLIS, MAX_IDLE_MILLIS, TimeUnit.MILLISECONDS);
+            return httpClient;
+        } catch (Exception e) {
+            throw new RuntimeException("HttpClient构建失败", e);
+        }
+    }
+
+    private static void evictIdle(PoolingNHttpClientConnectionManager connectionManager) {
+        try {
+            connectionManager.closeExpiredConnections();
+            connectionManager.closeIdleConnections(MAX_IDLE_MILLIS, TimeUnit.MILLISECONDS);
+        } catch (Exception e) {
+            logger.warn("回收空闲连接失败", e);
+        }
+    }
+
+    private static Thread newIoThread(Runnable runnable) {
+        Thread thread = new Thread(runnable, "MeterSphere-http-io");
+        thread.setDaemon(true);
+        return thread;
+    }
+
+    private static SSLContext getSslContext() throws Exception {
+        if (sslContext == null) {
+            synchronized (HttpClientUtil.class) {
+                if (sslContext == null) {
+                    // https 增加信任设置
+                    TrustStrategy trustStrategy = new TrustSelfSignedStrategy();
+                    sslContext = SSLContexts.custom().loadTrustMaterial(trustStrategy).build();
+                }
+            }
+        }
+        return sslContext;
+    }
+
+    private static SSLConnectionSocketFactory getSslSocketFactory() throws Exception {
+        if (sslSocketFactory == null) {
+            synchronized (HttpClientUtil.class) {
+                if (sslSocketFactory == null) {
+                    HostnameVerifier hostnameVerifier = NoopHostnameVerifier.INSTANCE;
+                    sslSocketFactory = new SSLConnectionSocketFactory(getSslContext(), hostnameVerifier);
+                }
+            }
+        }
+        return sslSocketFactory;
+    }
+
+    /**
+     * 各地址连接池的当前连接数
+     *
+     * @param async 是否为异步客户端的连接池
+     * @return 地址 -&gt; 连接数
+     */
+    public static Map<String, PoolStats> getPoolStats(boolean async) {
+        Map<String, PoolStats> stats = new TreeMap<>();
+        (async ? ASYNC_POOLS : POOLS).forEach((route, pool) -> stats.put(route, pool.getTotalStats()));
+        return stats;
+    }
+
+    /**
+     * Jenkins 停止时关闭所有连接池
+     */
+    @Terminator
+    public static void shutdown() {
+        EVICTOR.shutdownNow();
+        DECODER.shutdownNow();
+        POOLS.clear();
+        ASYNC_POOLS.clear();
+        close(CLIENTS);
+        close(ASYNC_CLIENTS);
+    }
+
+    private static void close(ConcurrentMap<String, ? extends Closeable> clients) {
+        for (String key : clients.keySet()) {
+            Closeable httpClient = clients.remove(key);
+            if (httpClient == null) {
+                continue;
+            }
+            try {
+                httpClient.close();
+            } catch (Exception e) {
+                logger.error("HttpClient关闭连接失败", e);
+            }
+        }
+    }
+
     /**
      * Get http请求
      *
@@ -64,37 +312,57 @@ public class HttpClientUtil {
      * @return 响应结果字符串
      */
     public static String get(String url, HttpClientConfig config) {
-        CloseableHttpClient httpClient = buildHttpClient(url);
-        HttpGet httpGet = new HttpGet(url);
+        return get(url, config, HttpClientUtil::readString);
+    }
 
+    /**
+     * Get http请求，响应体交给reader直接解码
+     *
+     * @param url    请求地址
+     * @param config 配置项，如果null则使用默认配置
+     * @param reader 响应体读取方式
+     * @return 解码后的响应结果
+     */
+    public static <T> T get(String url, HttpClientConfig config, ResponseReader<T> reader) {
+        CloseableHttpClient httpClient = getHttpClient(url);
         if (config == null) {
             config = new HttpClientConfig();
         }
         try {
-            httpGet.setConfig(config.buildRequestConfig());
-
-            Map<String, String> header = config.getHeader();
-            for (String key : header.keySet()) {
-                httpGet.addHeader(key, header.get(key));
-            }
-
-            httpGet.addHeader(HTTP.CONTENT_ENCODING, config.getCharset());
-
-            HttpResponse response = httpClient.execute(httpGet);
-            HttpEntity entity = response.getEntity();
-            return EntityUtils.toString(entity, config.getCharset());
+            HttpGet httpGet = buildGet(url, config);
+            return execute(httpClient, httpGet, config, reader);
         } catch (Exception e) {
             logger.error("HttpClient查询失败", e);
             throw new RuntimeException("HttpClient查询失败", e);
-        } finally {
-            try {
-                httpClient.close();
-            } catch (Exception e) {
-                logger.error("HttpClient关闭连接失败", e);
-            }
         }
     }
 
+    /**
+     * 异步Get http请求，不占用调用线程
+     *
+     * @param url    请求地址
+     * @param config 配置项，如果null则使用默认配置
+     * @return 响应结果字符串的Future
+     */
+    public static CompletableFuture<String> getAsync(String url, HttpClientConfig config) {
+        return getAsync(url, config, HttpClientUtil::readString);
+    }
+
+    /**
+     * 异步Get http请求，响应体交给reader直接解码
+     *
+     * @param url    请求地址
+     * @param config 配置项，如果null则使用默认配置
+     * @param reader 响应体读取方式
+     * @return 解码后的响应结果的Future
+     */
+    public static <T> CompletableFuture<T> getAsync(String url, HttpClientConfig config, ResponseReader<T> reader) {
+        if (config == null) {
+            config = new HttpClientConfig();
+        }
+        return executeAsync(url, buildGet(url, config), config, reader);
+    }
+
     /**
      * Post请求，请求内容必须为JSON格式的字符串
      *
@@ -104,43 +372,210 @@ public class HttpClientUtil {
      * @return 响应结果字符串
      */
     public static String post(String url, String json, HttpClientConfig config) {
-        CloseableHttpClient httpClient = buildHttpClient(url);
-        HttpPost httpPost = new HttpPost(url);
+        return post(url, json, config, HttpClientUtil::readString);
+    }
+
+    /**
+     * Post请求，请求内容必须为JSON格式的字符串，响应体交给reader直接解码
+     *
+     * @param url    请求地址
+     * @param json   JSON格式的字符串
+     * @param config 配置项，如果null则使用默认配置
+     * @param reader 响应体读取方式
+     * @return 解码后的响应结果
+     */
+    public static <T> T post(String url, String json, HttpClientConfig config, ResponseReader<T> reader) {
+        CloseableHttpClient httpClient = getHttpClient(url);
         if (config == null) {
             config = new HttpClientConfig();
         }
         try {
-            httpPost.setConfig(config.buildRequestConfig());
+            HttpPost httpPost = buildPost(url, json, config);
+            return execute(httpClient, httpPost, config, reader);
+        } catch (Exception e) {
+            logger.error("HttpClient查询失败", e);
+            throw new RuntimeException("HttpClient查询失败", e);
+        }
+    }
 
-            Map<String, String> header = config.getHeader();
-            for (String key : header.keySet()) {
-                httpPost.addHeader(key, header.get(key));
-            }
-            httpPost.addHeader(HTTP.CONTENT_TYPE, "application/json");
-            httpPost.addHeader(HTTP.CONTENT_ENCODING, config.getCharset());
+    /**
+     * 异步Post请求，请求内容必须为JSON格式的字符串，不占用调用线程
+     *
+     * @param url    请求地址
+     * @param json   JSON格式的字符串
+     * @param config 配置项，如果null则使用默认配置
+     * @return 响应结果字符串的Future
+     */
+    public static CompletableFuture<String> postAsync(String url, String json, HttpClientConfig config) {
+        return postAsync(url, json, config, HttpClientUtil::readString);
+    }
+
+    /**
+     * 异步Post请求，请求内容必须为JSON格式的字符串，响应体交给reader直接解码
+     *
+     * @param url    请求地址
+     * @param json   JSON格式的字符串
+     * @param config 配置项，如果null则使用默认配置
+     * @param reader 响应体读取方式
+     * @return 解码后的响应结果的Future
+     */
+    public static <T> CompletableFuture<T> postAsync(String url, String json, HttpClientConfig config, ResponseReader<T> reader) {
+        if (config == null) {
+            config = new HttpClientConfig();
+        }
+        return executeAsync(url, buildPost(url, json, config), config, reader);
+    }
+
+    private static HttpGet buildGet(String url, HttpClientConfig config) {
+        HttpGet httpGet = new HttpGet(url);
+        httpGet.setConfig(config.buildRequestConfig());
+
+        Map<String, String> header = config.getHeader();
+        for (String key : header.keySet()) {
+            httpGet.addHeader(key, header.get(key));
+        }
+
+        httpGet.addHeader(HTTP.CONTENT_ENCODING, config.getCharset());
+        return httpGet;
+    }
+
+    private static HttpPost buildPost(String url, String json, HttpClientConfig config) {
+        HttpPost httpPost = new HttpPost(url);
+        httpPost.setConfig(config.buildRequestConfig());
+
+        Map<String, String> header = config.getHeader();
+        for (String key : header.keySet()) {
+            httpPost.addHeader(key, header.get(key));
+        }
+        httpPost.addHeader(HTTP.CONTENT_TYPE, "application/json");
+        httpPost.addHeader(HTTP.CONTENT_ENCODING, config.getCharset());
 
-            EntityBuilder entityBuilder = EntityBuilder.create();
-            entityBuilder.setText(json);
-            entityBuilder.setContentType(ContentType.APPLICATION_JSON);
-            entityBuilder.setContentEncoding(config.getCharset());
-            HttpEntity requestEntity = entityBuilder.build();
-            httpPost.setEntity(requestEntity);
+        EntityBuilder entityBuilder = EntityBuilder.create();
+        entityBuilder.setText(json);
+        entityBuilder.setContentType(ContentType.APPLICATION_JSON);
+        entityBuilder.setContentEncoding(config.getCharset());
+        HttpEntity requestEntity = entityBuilder.build();
+        httpPost.setEntity(requestEntity);
+        return httpPost;
+    }
 
-            HttpResponse response = httpClient.execute(httpPost);
+    private static <T> T execute(CloseableHttpClient httpClient, HttpRequestBase request, HttpClientConfig config,
+                                 ResponseReader<T> reader) throws IOException {
+        Abortable abortable = ABORTABLE.get();
+        if (abortable != null) {
+            abortable.attach(request);
+        }
+        try (CloseableHttpResponse response = httpClient.execute(request)) {
             HttpEntity entity = response.getEntity();
-            return EntityUtils.toString(entity, config.getCharset());
-        } catch (Exception e) {
-            logger.error("HttpClient查询失败", e);
-            throw new RuntimeException("HttpClient查询失败", e);
-        } finally {
             try {
-                httpClient.close();
-            } catch (Exception e) {
-                logger.error("HttpClient关闭连接失败", e);
+                return reader.read(response, config.getCharset());
+            } finally {
+                // 读完剩余内容，连接才能归还连接池复用
+                EntityUtils.consumeQuietly(entity);
+            }
+        } finally {
+            if (abortable != null) {
+                abortable.detach(request);
+            }
+        }
+    }
+
+    /**
+     * 在当前线程上执行任务，任务中发起的同步请求可以通过 handle 从其他线程中止。
+     * 线程中断不能打断阻塞中的 socket 读取，中止请求会关闭连接，读取立即以异常结束
+     */
+    public static <T> T abortable(Abortable handle, Supplier<T> task) {
+        ABORTABLE.set(handle);
+        try {
+            return task.get();
+        } finally {
+            ABORTABLE.remove();
+        }
+    }
+
+    /**
+     * 同步请求的中止句柄，中止后新发起的请求也立即中止
+     */
+    public static final class Abortable {
+        private HttpRequestBase current;
+        private boolean aborted;
+
+        synchronized void attach(HttpRequestBase request) {
+            current = request;
+            if (aborted) {
+                request.abort();
+            }
+        }
+
+        synchronized void detach(HttpRequestBase request) {
+            if (current == request) {
+                current = null;
+            }
+        }
+
+        public synchronized void abort() {
+            aborted = true;
+            if (current != null) {
+                current.abort();
             }
         }
     }
 
+    private static <T> CompletableFuture<T> executeAsync(String url, HttpUriRequest request, HttpClientConfig config,
+                                                         ResponseReader<T> reader) {
+        CompletableFuture<T> result = new CompletableFuture<>();
+        String charset = config.getCharset();
+        Future<HttpResponse> future;
+        try {
+            future = getAsyncHttpClient(url).execute(request, new FutureCallback<HttpResponse>() {
+                @Override
+                public void completed(HttpResponse response) {
+                    // 在 I/O 线程上只取出已缓冲的响应体，解码转到解码线程，一个大的响应不会阻塞其他请求
+                    try {
+                        HttpEntity entity = response.getEntity();
+                        if (entity != null) {
+                            ByteArrayEntity buffered = new ByteArrayEntity(EntityUtils.toByteArray(entity));
+                            buffered.setContentType(entity.getContentType());
+                            buffered.setContentEncoding(entity.getContentEncoding());
+                            response.setEntity(buffered);
+                        }
+                        DECODER.execute(() -> {
+                            try {
+                                result.complete(reader.read(response, charset));
+                            } catch (Exception e) {
+                                failed(e);
+                            }
+                        });
+                    } catch (IOException | RejectedExecutionException e) {
+                        failed(e);
+                    }
+                }
+
+                @Override
+                public void failed(Exception e) {
+                    logger.error("HttpClient查询失败", e);
+                    result.completeExceptionally(new RuntimeException("HttpClient查询失败", e));
+                }
+
+                @Override
+                public void cancelled() {
+                    result.cancel(false);
+                }
+            });
+        } catch (Exception e) {
+            logger.error("HttpClient查询失败", e);
+            result.completeExceptionally(new RuntimeException("HttpClient查询失败", e));
+            return result;
+        }
+        // 调用方取消时中止底层请求，释放连接
+        result.whenComplete((r, e) -> {
+            if (result.isCancelled()) {
+                future.cancel(true);
+            }
+        });
+        return result;
+    }
+
     /**
      * Post请求，请求内容必须为JSON格式的字符串
      *
@@ -161,7 +596,7 @@ public class HttpClientUtil {
      * @return 响应结果字符串
      */
     public static String post(String url, Map<String, String> body, HttpClientConfig config) {
-        CloseableHttpClient httpClient = buildHttpClient(url);
+        CloseableHttpClient httpClient = getHttpClient(url);
         HttpPost httpPost = new HttpPost(url);
         if (config == null) {
             config = new HttpClientConfig();
@@ -188,18 +623,13 @@ public class HttpClientUtil {
                 }
             }
 
-            HttpResponse response = httpClient.execute(httpPost);
-            HttpEntity entity = response.getEntity();
-            return EntityUtils.toString(entity, config.getCharset());
+            try (CloseableHttpResponse response = httpClient.execute(httpPost)) {
+                HttpEntity entity = response.getEntity();
+                return EntityUtils.toString(entity, config.getCharset());
+            }
         } catch (Exception e) {
             logger.error("HttpClient查询失败", e);
             throw new RuntimeException("HttpClient查询失败", e);
-        } finally {
-            try {
-                httpClient.close();
-            } catch (Exception e) {
-                logger.error("HttpClient关闭连接失败", e);
-            }
         }
     }
 
@@ -0,0 +1,119 @@
+package io.metersphere.commons.utils;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 记录耗时分布的直方图，按 HdrHistogram 的对数-线性方式分桶：小于64微秒的值精确记录，
+ * 之后每个2的幂区间分为32个桶，百分位的相对误差不超过约3%。
+ * 记录时只做一次原子加，不加锁；内存固定约8KB。
+ */
+public final class LatencyHistogram {
+
+    private static final int SUB_BUCKET_BITS = 5;
+    private static final int HALF = 1 << SUB_BUCKET_BITS;
+    private static final int FULL = HALF << 1;
+    // 超过该值（约19小时）的记录按该值计算，单位微秒
+    private static final long MAX_VALUE = (1L << 36) - 1;
+    private static final int BUCKETS = index(MAX_VALUE) + 1;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final LongAdder count = new LongAdder();
+    private final LongAdder sum = new LongAdder();
+    private final AtomicLong max = new AtomicLong();
+
+    /**
+     * @param micros 耗时，单位微秒
+     */
+    public void record(long micros) {
+        long value = Math.min(Math.max(micros, 0), MAX_VALUE);
+        counts.incrementAndGet(index(value));
+        count.increment();
+        sum.add(value);
+        if (value > max.get()) {
+            max.accumulateAndGet(value, Math::max);
+        }
+    }
+
+    /**
+     * 当前数据的副本，百分位在副本上计算，不影响记录
+     */
+    public Snapshot snapshot() {
+        long[] copy = new long[BUCKETS];
+        long total = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            copy[i] = counts.get(i);
+            total += copy[i];
+        }
+        return new Snapshot(copy, total, sum.sum(), max.get());
+    }
+
+    private static int index(long value) {
+        if (value < FULL) {
+            return (int) value;
+        }
+        int shift = 63 - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS;
+        return FULL + (shift - 1) * HALF + (int) (value >>> shift) - HALF;
+    }
+
+    /**
+     * 桶内的最大值
+     */
+    private static long highestValue(int index) {
+        if (index < FULL) {
+            return index;
+        }
+        int shift = (index - FULL) / HALF + 1;
+        long sub = (index - FULL) % HALF + HALF;
+        return ((sub + 1) << shift) - 1;
+    }
+
+    public static final class Snapshot {
+        private final long[] counts;
+        private final long count;
+        private final long sum;
+        private final long max;
+
+        private Snapshot(long[] counts, long count, long sum, long max) {
+            this.counts = counts;
+            this.count = count;
+            this.sum = sum;
+            this.max = max;
+        }
+
+        /**
+         * @param quantile 0到1之间，如0.99
+         * @return 不小于该比例记录的值，单位微秒，没有记录时为0
+         */
+        public long getValueAtQuantile(double quantile) {
+            if (count == 0) {
+                return 0;
+            }
+            long rank = Math.max(1, (long) Math.ceil(quantile * count));
+            long seen = 0;
+            for (int i = 0; i < counts.length; i++) {
+                seen += counts[i];
+                if (seen >= rank) {
+                    return Math.min(highestValue(i), max);
+                }
+            }
+            return max;
+        }
+
+        public long getCount() {
+            return count;
+        }
+
+        /**
+         * 总耗时，单位微秒
+         */
+        public long getSum() {
+            return sum;
+        }
+
+        public long getMax() {
+            return max;
+        }
+    }
+}
@@ -1,11 +1,17 @@
 package io.metersphere.commons.utils;
 
+import com.alibaba.fastjson.JSON;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
 import java.io.PrintWriter;
 import java.io.StringWriter;
+import java.util.Collection;
+import java.util.Enumeration;
+import java.util.function.Supplier;
+import java.util.logging.Level;
+import java.util.logging.LogManager;
 
 public class LogUtil {
     //日志工具类
@@ -15,6 +21,31 @@ public class LogUtil {
     private static final String INFO = "INFO";
     private static final String WARN = "WARN";
     private static final String ERROR = "ERROR";
+    // 日志中数据内容的最大长度
+    private static final int MAX_PAYLOAD_CHARS = Integer.getInteger("io.metersphere.log.maxPayloadChars", 2000);
+
+    // 按调用类缓存的 Logger
+    private static final ClassValue<Logger> LOGGERS = new ClassValue<Logger>() {
+        @Override
+        protected Logger computeValue(Class<?> type) {
+            return LoggerFactory.getLogger(type);
+        }
+    };
+
+    private static final CallerResolver CALLER_RESOLVER = CallerResolver.create();
+
+    private static final String PLUGIN_LOGGER_NAME = "io.metersphere";
+    // 插件的根 Logger，开启 DEBUG 时各类的 Logger 一般都已开启
+    private static final Logger PLUGIN_LOGGER = LoggerFactory.getLogger(PLUGIN_LOGGER_NAME);
+    // Jenkins 中 slf4j 输出到 java.util.logging，可以直接查看各 Logger 的级别配置
+    private static final boolean JUL_BINDING = "org.slf4j.impl.JDK14LoggerFactory".equals(
+            LoggerFactory.getILoggerFactory().getClass().getName());
+    // 重新检查 Logger 级别配置的间隔，单位毫秒
+    private static final long DEBUG_RECHECK_MILLIS = 1000L;
+
+    // 插件下是否有单独开启 DEBUG 的 Logger，按 DEBUG_RECHECK_MILLIS 缓存
+    private static volatile boolean narrowDebug;
+    private static volatile long narrowDebugCheckedAt;
 
     /**
      * 初始化日志
@@ -22,10 +53,13 @@ public class LogUtil {
      * @return
      */
     public static Logger getLogger() {
-        return LoggerFactory.getLogger(LogUtil.getLogClass());
+        return LOGGERS.get(LogUtil.getLogClass());
     }
 
     public static void writeLog(Object msg, String level) {
+        if (DEBUG.equals(level) && !mayDebug()) {
+            return;
+        }
         Logger logger = LogUtil.getLogger();
 
         if (DEBUG.equals(level)) {
@@ -79,7 +113,95 @@ public class LogUtil {
         }
     }
 
+    /**
+     * 日志级别开启时才生成日志内容
+     */
+    public static void info(Supplier<?> msg) {
+        Logger logger = LogUtil.getLogger();
+        if (logger != null && logger.isInfoEnabled()) {
+            logger.info(LogUtil.getMsg(msg.get()));
+        }
+    }
+
+    public static void debug(Supplier<?> msg) {
+        if (!mayDebug()) {
+            return;
+        }
+        Logger logger = LogUtil.getLogger();
+        if (logger != null && logger.isDebugEnabled()) {
+            logger.debug(LogUtil.getMsg(msg.get()));
+        }
+    }
+
+    /**
+     * 是否可能输出 DEBUG 日志，返回false时不必查找调用类。
+     * 插件根 Logger 开启 DEBUG 时为true；否则在 java.util.logging 下检查是否有 io.metersphere 下的 Logger 单独配置了 DEBUG，
+     * 只对某个类开启 DEBUG 时仍能输出。无法查看级别配置时为true，由调用类的 Logger 判断
+     */
+    static boolean mayDebug() {
+        if (PLUGIN_LOGGER.isDebugEnabled() || !JUL_BINDING) {
+            return true;
+        }
+        long now = System.currentTimeMillis();
+        if (now - narrowDebugCheckedAt > DEBUG_RECHECK_MILLIS) {
+            narrowDebug = hasNarrowDebugLogger();
+            narrowDebugCheckedAt = now;
+        }
+        return narrowDebug;
+    }
+
+    private static boolean hasNarrowDebugLogger() {
+        LogManager manager = LogManager.getLogManager();
+        Enumeration<String> names = manager.getLoggerNames();
+        while (names.hasMoreElements()) {
+            String name = names.nextElement();
+            if (!name.startsWith(PLUGIN_LOGGER_NAME + ".")) {
+                continue;
+            }
+            java.util.logging.Logger logger = manager.getLogger(name);
+            Level level = logger == null ? null : logger.getLevel();
+            // slf4j 的 DEBUG 对应 FINE
+            if (level != null && level.intValue() <= Level.FINE.intValue()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 转为JSON用于日志，超过长度上限时截断；列表只序列化到达到上限为止，并注明总条数
+     */
+    public static String payload(Object data) {
+        if (data instanceof Collection) {
+            Collection<?> items = (Collection<?>) data;
+            StringBuilder sb = new StringBuilder("(共").append(items.size()).append("条)[");
+            int count = 0;
+            for (Object item : items) {
+                if (sb.length() >= MAX_PAYLOAD_CHARS) {
+                    break;
+                }
+                if (count++ > 0) {
+                    sb.append(',');
+                }
+                sb.append(JSON.toJSONString(item));
+            }
+            if (count < items.size() || sb.length() > MAX_PAYLOAD_CHARS) {
+                return truncate(sb) + "...]";
+            }
+            return sb.append(']').toString();
+        }
+        String json = JSON.toJSONString(data);
+        return json.length() > MAX_PAYLOAD_CHARS ? truncate(new StringBuilder(json)) + "...(共" + json.length() + "字符)" : json;
+    }
+
+    private static String truncate(StringBuilder sb) {
+        return sb.length() > MAX_PAYLOAD_CHARS ? sb.substring(0, MAX_PAYLOAD_CHARS) : sb.toString();
+    }
+
     public static void debug(Object msg) {
+        if (!mayDebug()) {
+            return;
+        }
         Logger logger = LogUtil.getLogger();
         if (logger != null && logger.isDebugEnabled()) {
             logger.debug(LogUtil.getMsg(msg));
@@ -87,6 +209,9 @@ public class LogUtil {
     }
 
     public static void debug(Object msg, Object o) {
+        if (!mayDebug()) {
+            return;
+        }
         Logger logger = LogUtil.getLogger();
         if (logger != null && logger.isDebugEnabled()) {
             logger.debug(LogUtil.getMsg(msg), o);
@@ -94,6 +219,9 @@ public class LogUtil {
     }
 
     public static void debug(Object msg, Object o1, Object o2) {
+        if (!mayDebug()) {
+            return;
+        }
         Logger logger = LogUtil.getLogger();
         if (logger != null && logger.isDebugEnabled()) {
             logger.debug(LogUtil.getMsg(msg), o1, o2);
@@ -101,6 +229,9 @@ public class LogUtil {
     }
 
     public static void debug(Object msg, Object[] obj) {
+        if (!mayDebug()) {
+            return;
+        }
         Logger logger = LogUtil.getLogger();
         if (logger != null && logger.isDebugEnabled()) {
             logger.debug(LogUtil.getMsg(msg), obj);
@@ -138,7 +269,7 @@ public class LogUtil {
     public static void error(Object msg) {
         Logger logger = LogUtil.getLogger();
         if (logger != null && logger.isErrorEnabled()) {
-            logger.error(LogUtil.getMsg(msg));// 并追加方法名称
+            logger.error(LogUtil.getMsg(msg));
         }
     }
 
@@ -170,13 +301,16 @@ public class LogUtil {
         }
     }
 
+    /**
+     * 调用类已是 Logger 名称；Java 8 下取调用方法名只能生成完整的调用栈信息，不再输出方法名
+     */
     public static String getMsg(Object msg, Throwable ex) {
         String str = "";
 
         if (msg != null) {
-            str = LogUtil.getLogMethod() + "[" + msg.toString() + "]";
+            str = "[" + msg.toString() + "]";
         } else {
-            str = LogUtil.getLogMethod() + "[null]";
+            str = "[null]";
         }
         if (ex != null) {
             str += "[" + ex.getMessage() + "]";
@@ -190,37 +324,52 @@ public class LogUtil {
     }
 
     /**
-     * 得到调用类名称
+     * 得到调用类，只取调用栈中的类，不生成完整的调用栈信息
      *
      * @return
      */
-    private static String getLogClass() {
-        String str = "";
-
-        StackTraceElement[] stack = (new Throwable()).getStackTrace();
-        if (stack.length > 3) {
-            StackTraceElement ste = stack[3];
-            str = ste.getClassName();// 类名称
+    private static Class<?> getLogClass() {
+        if (CALLER_RESOLVER != null) {
+            for (Class<?> type : CALLER_RESOLVER.getClassContext()) {
+                if (type != LogUtil.class && type != CallerResolver.class) {
+                    return type;
+                }
+            }
+            return LogUtil.class;
         }
-
-        return str;
+        for (StackTraceElement ste : (new Throwable()).getStackTrace()) {
+            if (!LogUtil.class.getName().equals(ste.getClassName())) {
+                try {
+                    return Class.forName(ste.getClassName(), false, LogUtil.class.getClassLoader());
+                } catch (ClassNotFoundException e) {
+                    break;
+                }
+            }
+        }
+        return LogUtil.class;
     }
 
     /**
-     * 得到调用方法名称
-     *
-     * @return
+     * SecurityManager#getClassContext 只返回调用栈上的类，比生成调用栈信息开销小得多。
+     * 插件要求 Java 8，没有 StackWalker；SecurityManager 在 JDK 17 起标记为待移除，只用于读取调用栈，
+     * 创建失败时退回使用调用栈信息
      */
-    private static String getLogMethod() {
-        String str = "";
-
-        StackTraceElement[] stack = (new Throwable()).getStackTrace();
-        if (stack.length > 4) {
-            StackTraceElement ste = stack[4];
-            str = "Method[" + ste.getMethodName() + "]";// 方法名称
+    @SuppressWarnings("removal")
+    private static final class CallerResolver extends SecurityManager {
+
+        static CallerResolver create() {
+            try {
+                return new CallerResolver();
+            } catch (SecurityException e) {
+                // 安装了 SecurityManager 且不允许创建时，退回使用调用栈信息
+                return null;
+            }
         }
 
-        return str;
+        @Override
+        protected Class<?>[] getClassContext() {
+            return super.getClassContext();
+        }
     }
 
     public static String toString(Throwable e) {
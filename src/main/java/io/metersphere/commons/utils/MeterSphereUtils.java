@@ -1,270 +1,755 @@
 package io.metersphere.commons.utils;
 
-import com.alibaba.fastjson.JSON;
-import com.alibaba.fastjson.TypeReference;
+import hudson.model.Computer;
 import hudson.model.Run;
+import io.metersphere.client.CatalogCache;
 import io.metersphere.client.MeterSphereClient;
+import io.metersphere.client.RunHandle;
+import io.metersphere.client.RunJournal;
+import io.metersphere.client.RunStatusScheduler;
+import io.metersphere.client.RunType;
 import io.metersphere.commons.constants.Results;
+import io.metersphere.commons.exception.MeterSphereException;
+import io.metersphere.commons.exception.RunTimeoutException;
+import io.metersphere.commons.model.CompactTestCaseList;
 import io.metersphere.commons.model.MsExecResponseDTO;
+import io.metersphere.commons.model.ProjectDTO;
 import io.metersphere.commons.model.RunModeConfig;
 import io.metersphere.commons.model.TestCaseDTO;
+import io.metersphere.commons.model.TestPlanDTO;
 import org.apache.commons.lang.StringUtils;
 
-import java.io.PrintStream;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
 import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.function.IntFunction;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
 
 public class MeterSphereUtils {
-    public static PrintStream logger;
-    private static final String LOG_PREFIX = "[MeterSphere，代码测试]";
+    // 未配置超时时间时的默认等待上限，单位分钟
+    private static final int DEFAULT_TIMEOUT_MINUTES = Integer.getInteger("io.metersphere.run.timeoutMinutes", 1440);
+    // 缓存的列表中查找索引的类别
+    private static final String RESOLUTION_INDEX = "resolution";
+    // 按ID找到过的测试所属的类型
+    private static final ConcurrentMap<String, RunType> CASE_TYPES = new ConcurrentHashMap<>();
+    private static final int MAX_CASE_TYPES = 10000;
+    // 停止远程执行的请求等待时长，单位秒
+    private static final int STOP_TIMEOUT_SECONDS = 30;
 
-    private static void log(String msg) {
-        logger.println(LOG_PREFIX + msg);
+    /**
+     * 按名称或ID查找项目，找不到时原样返回
+     */
+    public static String resolveProjectId(MeterSphereClient meterSphereClient, String workspaceId, String projectNameOrId) {
+        if (StringUtils.isBlank(projectNameOrId)) {
+            return projectNameOrId;
+        }
+        ProjectDTO project = resolve(meterSphereClient, CatalogCache.projectsScope(workspaceId),
+                () -> meterSphereClient.getProjectIds(workspaceId),
+                list -> ResolutionIndex.build(list, ProjectDTO::getId, ProjectDTO::getName, null),
+                index -> firstNonNull(index.getByName(projectNameOrId), index.getById(projectNameOrId)));
+        return project == null ? projectNameOrId : project.getId();
     }
 
-    public static boolean runUiTest(MeterSphereClient meterSphereClient, TestCaseDTO c, String openMode) {
-        String url = meterSphereClient.getBaseInfo();
-        boolean flag = true;
-        String result = "";
-        String id = c.getId();
-        try {
-            result = meterSphereClient.runUiTest(id, c.getProjectId());
-        } catch (Exception e) {
-            flag = false;
+    /**
+     * 按名称或ID查找测试计划
+     */
+    public static TestPlanDTO findTestPlan(MeterSphereClient meterSphereClient, String projectId, String workspaceId, String testPlanNameOrId) {
+        return resolve(meterSphereClient, CatalogCache.testPlansScope(projectId, workspaceId),
+                () -> meterSphereClient.getTestPlanIds(projectId, workspaceId),
+                list -> ResolutionIndex.build(list, TestPlanDTO::getId, TestPlanDTO::getName, null),
+                index -> firstNonNull(index.getById(testPlanNameOrId), index.getByName(testPlanNameOrId)));
+    }
+
+    /**
+     * 按ID或显示名称（名称 [类型] [版本]）查找项目下的测试
+     */
+    public static TestCaseDTO findTestCase(MeterSphereClient meterSphereClient, String projectId, String testCaseNameOrId, boolean byName) {
+        if (!byName) {
+            return findTestCaseById(meterSphereClient, projectId, testCaseNameOrId);
         }
-        try {
-            List<MsExecResponseDTO> dto = JSON.parseObject(result, new TypeReference<List<MsExecResponseDTO>>() {
-            });
-            String reportId = dto.get(0).getReportId();
-            String reportView = "/#/ui/report/view/" + reportId.replace("\"", "");
-            boolean state = true;
-            String apiTestState = "";
-            while (state) {
-                apiTestState = meterSphereClient.getUiTestState(reportId);
-                if (apiTestState.equalsIgnoreCase(Results.SUCCESS)) {
-                    state = false;
-                    meterSphereClient.changeState(id, Results.PASS);
-                } else if (apiTestState.equalsIgnoreCase(Results.ERROR)) {
-                    state = false;
-                    flag = false;
-                    meterSphereClient.changeState(id, Results.FAILURE);
-                }
-                Thread.sleep(5000);
-            }
-            if (StringUtils.equals(openMode, "anon")) {
-                Map<String, String> params = new HashMap<>();
-                params.put("customData", reportId);
-                params.put("shareType", "UI_REPORT");
-                String shareUrl = meterSphereClient.getShareInfo(params);
-                reportView = "/ui/shareUiReport" + shareUrl;
-            }
-            log("点击链接进入" + c.getName() + "测试报告页面:" + url + reportView);
-        } catch (InterruptedException e) {
-            log(c.getName() + "发生异常：" + e.getMessage());
-            flag = false;
+        return resolve(meterSphereClient, CatalogCache.testCasesScope(projectId),
+                () -> meterSphereClient.getTestCases(projectId),
+                MeterSphereUtils::testCaseIndex,
+                index -> firstNonNull(index.getById(testCaseNameOrId), index.getByLabel(testCaseNameOrId)));
+    }
+
+    /**
+     * 按列保存的测试列表直接按列比较，查找时不生成 TestCaseDTO，也不拼接显示名称
+     */
+    private static ResolutionIndex<TestCaseDTO> testCaseIndex(List<TestCaseDTO> list) {
+        if (!(list instanceof CompactTestCaseList)) {
+            return ResolutionIndex.build(list, TestCaseDTO::getId, TestCaseDTO::getName, MeterSphereUtils::getDisplayName);
         }
-        return flag;
+        CompactTestCaseList testCases = (CompactTestCaseList) list;
+        return ResolutionIndex.buildAt(list,
+                new ResolutionIndex.Key() {
+                    @Override
+                    public String of(int position) {
+                        return testCases.getId(position);
+                    }
+
+                    @Override
+                    public boolean matches(int position, String value) {
+                        return testCases.idEquals(position, value);
+                    }
+                },
+                new ResolutionIndex.Key() {
+                    @Override
+                    public String of(int position) {
+                        return testCases.getName(position);
+                    }
+
+                    @Override
+                    public boolean matches(int position, String value) {
+                        return testCases.hasName(position) && testCases.nameEquals(position, value, 0, value.length());
+                    }
+                },
+                new ResolutionIndex.Key() {
+                    @Override
+                    public String of(int position) {
+                        return getDisplayName(testCases.getName(position), testCases.getType(position), testCases.getVersionName(position));
+                    }
+
+                    @Override
+                    public boolean matches(int position, String value) {
+                        return displayNameEquals(testCases, position, value);
+                    }
+                });
     }
 
-    public static boolean runPerformTest(MeterSphereClient meterSphereClient, TestCaseDTO c, String testPlanId, String openMode) {
-        String url = meterSphereClient.getBaseInfo();
-        String reportId = "";
-        boolean flag = true;
-        String id = c.getId();
-        try {
-            reportId = meterSphereClient.runPerformanceTest(id, testPlanId);
-        } catch (Exception e) {
-            flag = false;
-            log(c.getName() + "发生异常：" + e.getMessage());
+    /**
+     * 按位置读取测试的显示名称，按列保存的列表不生成 TestCaseDTO
+     */
+    public static IntFunction<String> displayNames(List<TestCaseDTO> list) {
+        if (list instanceof CompactTestCaseList) {
+            CompactTestCaseList testCases = (CompactTestCaseList) list;
+            return position -> getDisplayName(testCases.getName(position), testCases.getType(position), testCases.getVersionName(position));
         }
-        try {
-            String reportView = "/#/performance/report/view/" + reportId.replace("\"", "");
-            boolean state = true;
-            String pfmTestState = "";
-            while (state) {
-                pfmTestState = meterSphereClient.getPerformanceTestState(id);
-                log("性能测试[" + c.getName() + "]执行状态：" + pfmTestState);
-                if (pfmTestState.equalsIgnoreCase(Results.COMPLETED)) {
-                    //更新测试计划下性能测试状态
-                    meterSphereClient.updateStateLoad(testPlanId, id, "success");
-                    state = false;
-                    meterSphereClient.changeState(id, Results.PASS);
-                } else if (pfmTestState.equalsIgnoreCase(Results.ERROR)) {
-                    //更新测试计划下性能测试状态
-                    meterSphereClient.updateStateLoad(testPlanId, id, "Error");
-                    state = false;
-                    flag = false;
-                    meterSphereClient.changeState(id, Results.FAILURE);
-                }
-                Thread.sleep(5000);
-            }
-            if (StringUtils.equals(openMode, "anon")) {
-                Map<String, String> params = new HashMap<>();
-                params.put("customData", reportId);
-                params.put("shareType", "PERFORMANCE_REPORT");
-                String shareUrl = meterSphereClient.getShareInfo(params);
-                reportView = "/performance/share-report" + shareUrl;
-            }
-            log("点击链接进入" + c.getName() + "测试报告页面: " + url + reportView);
-        } catch (InterruptedException e) {
-            log(c.getName() + "发生异常：" + e.getMessage());
-            flag = false;
+        return position -> getDisplayName(list.get(position));
+    }
+
+    /**
+     * value 是否为第 position 个测试的显示名称（名称 [类型] [版本]），直接与各列比较
+     */
+    static boolean displayNameEquals(CompactTestCaseList testCases, int position, String value) {
+        String type = String.valueOf(testCases.getType(position));
+        String version = String.valueOf(testCases.getVersionName(position));
+        int nameEnd = value.length() - type.length() - version.length() - 6;
+        if (nameEnd < 0) {
+            return false;
         }
-        return flag;
+        int typeStart = nameEnd + 2;
+        int versionStart = typeStart + type.length() + 3;
+        return value.startsWith(" [", nameEnd)
+                && value.startsWith(type, typeStart)
+                && value.startsWith("] [", typeStart + type.length())
+                && value.startsWith(version, versionStart)
+                && value.endsWith("]")
+                && testCases.nameEquals(position, value, 0, nameEnd);
     }
 
-    public static boolean runScenario(MeterSphereClient meterSphereClient, TestCaseDTO c, String projectId, String runMode, String resourcePoolId, String openMode) {
-        String url = meterSphereClient.getBaseInfo();
-        boolean flag = true;
-        String reportId = null;
-        try {
-            RunModeConfig config = new RunModeConfig();
-            config.setResourcePoolId(resourcePoolId);
-            config.setMode(runMode);
-            config.setReportName("");
-            config.setReportType("iddReport");
-            config.setOnSampleError(true);
-            reportId = meterSphereClient.runScenario(c, projectId, runMode, config);
-        } catch (Exception e) {
-            flag = false;
-            log(c.getName() + "场景测试发生异常:" + e.getMessage());
+    /**
+     * 按ID查找测试，不下载整个项目的测试列表。
+     * 之前找到过的测试只查询其所属类型的列表，否则同时查询各类型的列表，先找到的返回
+     */
+    private static TestCaseDTO findTestCaseById(MeterSphereClient meterSphereClient, String projectId, String testCaseId) {
+        String key = meterSphereClient.getEndpoint() + "|" + projectId + "|" + testCaseId;
+        RunType known = CASE_TYPES.get(key);
+        TestCaseDTO testCase = meterSphereClient.findTestCase(projectId, testCaseId, known);
+        if (testCase == null && known != null) {
+            // 测试可能已被删除后重建为其他类型
+            CASE_TYPES.remove(key);
+            testCase = meterSphereClient.findTestCase(projectId, testCaseId, null);
         }
-        try {
-            String reportView = "/#/api/automation/report/view/" + reportId.replace("\"", "");
-            boolean state = true;
-            String apiTestState = "";
-            while (state) {
-                apiTestState = meterSphereClient.getApiScenario(reportId);
-                log("场景测试[" + c.getName() + "]执行状态：" + apiTestState);
-                if (apiTestState.equalsIgnoreCase(Results.SUCCESS)) {
-                    state = false;
-                } else if (apiTestState.equalsIgnoreCase(Results.ERROR)) {
-                    state = false;
-                    flag = false;
-                } else if (apiTestState.equalsIgnoreCase(Results.FAKE_ERROR)) {
-                    state = false;
-                    // 误报属于失败
-                    flag = false;
-                }
-                Thread.sleep(5000);
+        RunType type = testCase == null ? null : getRunType(testCase);
+        if (type != null) {
+            if (CASE_TYPES.size() >= MAX_CASE_TYPES) {
+                CASE_TYPES.clear();
             }
-            if (StringUtils.equals(openMode, "anon")) {
-                Map<String, String> params = new HashMap<>();
-                params.put("customData", reportId);
-                params.put("shareType", "API_REPORT");
-                String shareUrl = meterSphereClient.getShareInfo(params);
-                reportView = "/api/share-api-report" + shareUrl;
-            }
-            log("点击链接进入" + c.getName() + "测试报告页面: " + url + reportView);
-        } catch (InterruptedException e) {
-            log(c.getName() + "发生异常：" + e.getMessage());
-            flag = false;
+            CASE_TYPES.put(key, type);
         }
-        return flag;
+        return testCase;
     }
 
-    public static boolean runDefinition(MeterSphereClient meterSphereClient, TestCaseDTO c, String testPlanId, String runMode) {
-        boolean flag = true;
-        String id = c.getId();
-        try {
-            meterSphereClient.runDefinition(c, runMode, testPlanId, id);
-        } catch (Exception e) {
-            flag = false;
-            log(c.getName() + "测试用例发生异常:" + e.getMessage());
+    /**
+     * 在各构建共用的列表缓存中查找，不使用本地副本和较早加载的列表；找不到时列表可能已过时，重新加载后再查找一次
+     */
+    private static <T> T resolve(MeterSphereClient meterSphereClient, String scope, Supplier<List<T>> loader,
+                                 Function<List<T>, ResolutionIndex<T>> builder, Function<ResolutionIndex<T>, T> finder) {
+        T found = finder.apply(CatalogCache.deriveFresh(meterSphereClient, scope, loader, RESOLUTION_INDEX, builder));
+        if (found == null) {
+            CatalogCache.invalidate(meterSphereClient, scope);
+            found = finder.apply(CatalogCache.deriveFresh(meterSphereClient, scope, loader, RESOLUTION_INDEX, builder));
         }
-        try {
-            boolean state = true;
-            String status = "";
-            while (state) {
-                status = meterSphereClient.getApiTestCaseReport(c.getId());
-                log("测试用例[" + c.getName() + "]执行状态：" + status);
-                if (status.replace("\"", "").equalsIgnoreCase("success")) {
-                    state = false;
-                } else if (status.replace("\"", "").equalsIgnoreCase("error")) {
-                    state = false;
-                    flag = false;
-                } else if (status.replace("\"", "").equalsIgnoreCase(Results.FAKE_ERROR) || status.replace("\"", "").equalsIgnoreCase("errorReportResult")) {
-                    state = false;
-                    flag = false;
-                }
-                Thread.sleep(5000);
-            }
-        } catch (InterruptedException e) {
-            log(c.getName() + "发生异常：" + e.getMessage());
-            flag = false;
+        return found;
+    }
 
+    private static <T> T firstNonNull(T first, T second) {
+        return first != null ? first : second;
+    }
+
+    /**
+     * 预取用户ID和站点地址，之后的提交和生成报告链接直接使用缓存；预取失败不影响构建，使用时会重新查询
+     */
+    public static void prefetchSession(MeterSphereClient meterSphereClient) {
+        meterSphereClient.checkUserAsync();
+        meterSphereClient.getBaseInfoAsync();
+    }
+
+    /**
+     * 查找会同步等待列表加载，列表加载本身使用 CatalogExecutor，这里不能再占用它的线程
+     */
+    public static CompletableFuture<String> resolveProjectIdAsync(MeterSphereClient meterSphereClient, String workspaceId, String projectNameOrId) {
+        if (StringUtils.isBlank(projectNameOrId)) {
+            return CompletableFuture.completedFuture(projectNameOrId);
         }
-        return flag;
+        return CompletableFuture.supplyAsync(() -> resolveProjectId(meterSphereClient, workspaceId, projectNameOrId), Computer.threadPoolForRemoting);
     }
 
-    public static boolean runTestPlan(Run<?, ?> run, MeterSphereClient meterSphereClient, String projectId,
-                                      String mode, String testPlanId, String resourcePoolId, String openMode) throws InterruptedException {
-        log("测试计划开始执行");
-        String id = meterSphereClient.exeTestPlan(projectId, testPlanId, mode, resourcePoolId);
-        log("生成测试报告id:" + id);
-        String url = meterSphereClient.getBaseInfo();
-        boolean flag = true;
-        boolean state = true;
-        while (state) {
-            String status = meterSphereClient.getStatus(id);
-            if (status.replace('"', ' ').trim().equalsIgnoreCase(Results.SUCCESS)) {
-                log("该测试计划已完成");
-                state = false;
-            } else if (status.replace('"', ' ').trim().equalsIgnoreCase(Results.FAILED)) {
-                flag = false;
-                state = false;
-                log("该测试计划失败");
-            } else if (status.replace('"', ' ').trim().equalsIgnoreCase(Results.COMPLETED)) {
-                state = false;
-                log("该测试计划已完成");
+    public static CompletableFuture<TestPlanDTO> findTestPlanAsync(MeterSphereClient meterSphereClient, String projectId, String workspaceId, String testPlanNameOrId) {
+        return CompletableFuture.supplyAsync(() -> findTestPlan(meterSphereClient, projectId, workspaceId, testPlanNameOrId), Computer.threadPoolForRemoting);
+    }
+
+    public static CompletableFuture<TestCaseDTO> findTestCaseAsync(MeterSphereClient meterSphereClient, String projectId, String testCaseNameOrId, boolean byName) {
+        return CompletableFuture.supplyAsync(() -> findTestCase(meterSphereClient, projectId, testCaseNameOrId, byName), Computer.threadPoolForRemoting);
+    }
+
+    /**
+     * 等待异步结果，异常按原样抛出
+     */
+    public static <T> T await(CompletableFuture<T> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
             }
-            Thread.sleep(5000);
-        }
-        String reportView = "/#/track/testPlan/reportList?resourceId=" + id;
-        if (StringUtils.equals(openMode, "anon")) {
-            Map<String, String> params = new HashMap<>();
-            params.put("customData", id);
-            params.put("shareType", "PLAN_DB_REPORT");
-            String shareUrl = meterSphereClient.getShareInfo(params);
-            reportView = "/track/share-plan-report" + shareUrl;
+            throw new MeterSphereException(cause);
         }
-        log("点击链接进入测试计划报告页面:" + url + reportView);
-        return flag;
     }
 
-    public static boolean getTestStepsBySingle(MeterSphereClient meterSphereClient, String projectId, TestCaseDTO testCase,
-                                               String testPlanId, String resourcePoolId, String openMode) {
-        log("测试ID: " + testCase.getId());
-        log("测试名称: " + testCase.getName() + " [" + testCase.getType() + "]" + " [" + testCase.getVersionName() + "]");
-        boolean flag = true;
+    public static String getDisplayName(TestCaseDTO testCase) {
+        return getDisplayName(testCase.getName(), testCase.getType(), testCase.getVersionName());
+    }
+
+    private static String getDisplayName(String name, String type, String versionName) {
+        return name + " [" + type + "]" + " [" + versionName + "]";
+    }
+
+    public static RunType getRunType(TestCaseDTO testCase) {
         switch (testCase.getType()) {
             case Results.PERFORMANCE:
             case Results.LOAD_TEST:
-                flag = MeterSphereUtils.runPerformTest(meterSphereClient, testCase, "", openMode);
-                break;
+                return RunType.PERFORMANCE;
             case Results.SCENARIO:
             case Results.API_SCENARIO:
-                flag = MeterSphereUtils.runScenario(meterSphereClient, testCase, projectId, "scenario", resourcePoolId, openMode);
-                break;
+                return RunType.SCENARIO;
             case Results.DEFINITION:
             case Results.API_CASE:
-                flag = MeterSphereUtils.runDefinition(meterSphereClient, testCase, testPlanId, "JENKINS");
-                break;
+                return RunType.DEFINITION;
             case Results.UI:
-                flag = MeterSphereUtils.runUiTest(meterSphereClient, testCase, openMode);
+                return RunType.UI;
+            default:
+                return null;
+        }
+    }
+
+    /**
+     * 提交测试计划，不等待结束。Jenkins 重启前同一任务提交过的未结束报告直接复用
+     */
+    public static RunHandle startTestPlan(ExecutionContext context, String projectId, String mode, String testPlanId,
+                                          String resourcePoolId) {
+        MeterSphereClient meterSphereClient = context.getClient();
+        Run<?, ?> run = context.getRun();
+        RunHandle handle = RunJournal.adopt(run, meterSphereClient, RunType.TEST_PLAN, testPlanId);
+        if (handle != null) {
+            context.log("复用Jenkins重启前未结束的测试报告id:" + handle.getReportId());
+        } else {
+            context.log("测试计划开始执行");
+            String id = meterSphereClient.exeTestPlan(projectId, testPlanId, mode, resourcePoolId);
+            context.log("生成测试报告id:" + id);
+            handle = new RunHandle(RunType.TEST_PLAN, id, id, testPlanId, null, testPlanId);
+        }
+        RunJournal.started(run, meterSphereClient, handle);
+        context.recordSubmitted();
+        return handle;
+    }
+
+    /**
+     * 提交单个测试，不等待结束。Jenkins 重启前同一任务提交过的未结束执行直接复用
+     *
+     * @return 提交的执行，测试类型不支持时为null
+     */
+    public static RunHandle startTestCase(ExecutionContext context, String projectId, TestCaseDTO c, String testPlanId,
+                                          String resourcePoolId) {
+        RunType type = getRunType(c);
+        if (type == null) {
+            return null;
+        }
+        MeterSphereClient meterSphereClient = context.getClient();
+        Run<?, ?> run = context.getRun();
+        RunHandle handle = RunJournal.adopt(run, meterSphereClient, type, c.getId());
+        if (handle != null) {
+            context.log("复用Jenkins重启前未结束的执行: " + handle.getPollId());
+        } else {
+            handle = submitTestCase(meterSphereClient, projectId, c, type, testPlanId, resourcePoolId);
+        }
+        RunJournal.started(run, meterSphereClient, handle);
+        context.recordSubmitted();
+        return handle;
+    }
+
+    private static RunHandle submitTestCase(MeterSphereClient meterSphereClient, String projectId, TestCaseDTO c, RunType type,
+                                            String testPlanId, String resourcePoolId) {
+        String id = c.getId();
+        switch (type) {
+            case PERFORMANCE:
+                String reportId = meterSphereClient.runPerformanceTest(id, "");
+                return new RunHandle(type, id, reportId, id, c.getName(), "");
+            case SCENARIO:
+                String scenarioReportId = meterSphereClient.runScenario(c, projectId, "scenario", scenarioConfig(resourcePoolId, "scenario"));
+                return new RunHandle(type, scenarioReportId, scenarioReportId, id, c.getName(), testPlanId);
+            case DEFINITION:
+                meterSphereClient.runDefinition(c, "JENKINS", testPlanId, id);
+                return new RunHandle(type, id, null, id, c.getName(), testPlanId);
+            case UI:
+                List<MsExecResponseDTO> dto = meterSphereClient.runUiTest(id, c.getProjectId());
+                String uiReportId = dto.get(0).getReportId();
+                return new RunHandle(type, uiReportId, uiReportId, id, c.getName(), testPlanId);
+            default:
+                throw new MeterSphereException("不支持的测试类型: " + c.getType());
+        }
+    }
+
+    /**
+     * 一次请求批量提交同一项目下的多个场景或UI测试，返回 用例ID -> 执行；Jenkins 重启前未结束的执行直接复用。
+     * 服务器没有返回报告ID的用例不在结果中
+     */
+    public static Map<String, RunHandle> startTestCases(ExecutionContext context, String projectId, RunType type,
+                                                        List<TestCaseDTO> testCases, String testPlanId, String resourcePoolId) {
+        MeterSphereClient meterSphereClient = context.getClient();
+        Run<?, ?> run = context.getRun();
+        Map<String, RunHandle> handles = new LinkedHashMap<>();
+        List<TestCaseDTO> submit = new ArrayList<>();
+        for (TestCaseDTO c : testCases) {
+            RunHandle adopted = RunJournal.adopt(run, meterSphereClient, type, c.getId());
+            if (adopted != null) {
+                context.log("复用Jenkins重启前未结束的执行: " + adopted.getPollId());
+                handles.put(c.getId(), adopted);
+                RunJournal.started(run, meterSphereClient, adopted);
+                context.recordSubmitted();
+            } else {
+                submit.add(c);
+            }
+        }
+        if (submit.isEmpty()) {
+            return handles;
+        }
+        List<String> ids = submit.stream().map(TestCaseDTO::getId).collect(Collectors.toList());
+        Map<String, String> reportIds;
+        switch (type) {
+            case SCENARIO:
+                reportIds = meterSphereClient.runScenarios(ids, projectId, scenarioConfig(resourcePoolId, "parallel"));
+                break;
+            case UI:
+                reportIds = meterSphereClient.runUiTests(ids, projectId);
                 break;
             default:
+                throw new MeterSphereException("不支持批量执行的测试类型: " + type);
+        }
+        context.log("批量提交" + type.getLabel() + " " + ids.size() + " 个，返回报告 " + reportIds.size() + " 个");
+        for (TestCaseDTO c : submit) {
+            String reportId = reportIds.get(c.getId());
+            if (reportId != null) {
+                RunHandle handle = new RunHandle(type, reportId, reportId, c.getId(), c.getName(), testPlanId);
+                RunJournal.started(run, meterSphereClient, handle);
+                context.recordSubmitted();
+                handles.put(c.getId(), handle);
+            }
+        }
+        return handles;
+    }
+
+    private static RunModeConfig scenarioConfig(String resourcePoolId, String mode) {
+        RunModeConfig config = new RunModeConfig();
+        config.setResourcePoolId(resourcePoolId);
+        config.setMode(mode);
+        config.setReportName("");
+        config.setReportType("iddReport");
+        config.setOnSampleError(true);
+        return config;
+    }
+
+    /**
+     * 把执行登记到全局轮询调度器，返回在结束状态时完成的 Future，不阻塞。
+     * 超过上下文中的等待时长后 Future 以 {@link RunTimeoutException} 结束。
+     * 控制台只输出状态变化、间隔输出的进度和结束汇总
+     */
+    public static CompletableFuture<String> track(ExecutionContext context, RunHandle handle) {
+        return track(context, handle, System.currentTimeMillis());
+    }
+
+    /**
+     * 同 {@link #track(ExecutionContext, RunHandle)}，等待时长从 startedAt 开始计算，
+     * Jenkins 重启后恢复跟踪时只等待剩余的时长
+     *
+     * @param startedAt 开始等待的时间
+     */
+    public static CompletableFuture<String> track(ExecutionContext context, RunHandle handle, long startedAt) {
+        MeterSphereClient meterSphereClient = context.getClient();
+        RunType type = handle.getType();
+        String name = handle.getName() == null ? handle.getPollId() : handle.getName();
+        ProgressReporter onStatus = new ProgressReporter(context, type.getLabel() + "[" + name + "]");
+        Integer timeoutMinutes = context.getTimeoutMinutes();
+        int minutes = timeoutMinutes == null || timeoutMinutes <= 0 ? DEFAULT_TIMEOUT_MINUTES : timeoutMinutes;
+        long waited = Math.max(0, System.currentTimeMillis() - startedAt);
+        // 剩余时长不能为0，0表示不限制
+        long remaining = Math.max(1, TimeUnit.MINUTES.toMillis(minutes) - waited);
+        if (waited >= TimeUnit.MINUTES.toMillis(1)) {
+            context.log(type.getLabel() + "[" + name + "]已等待 " + ProgressReporter.formatElapsed(waited)
+                    + "，剩余等待时长 " + ProgressReporter.formatElapsed(remaining));
+        }
+        CompletableFuture<String> result = RunStatusScheduler.track(meterSphereClient, handle, onStatus, remaining);
+        // 取消等待（构建中断、Jenkins 停止）时保留记录，重启后继续跟踪
+        result.whenComplete((status, e) -> {
+            if (!(e instanceof CancellationException)) {
+                RunJournal.ended(context.getRun(), meterSphereClient, handle);
+                onStatus.finished(status);
+            }
+        });
+        return result;
+    }
+
+    /**
+     * 执行结束后回写状态并输出报告链接，会发起同步请求，不要在网络IO线程中调用
+     *
+     * @return 是否执行成功
+     */
+    public static boolean finish(ExecutionContext context, RunHandle handle, String status) {
+        MeterSphereClient meterSphereClient = context.getClient();
+        RunType type = handle.getType();
+        boolean success = type.isSuccess(status);
+        switch (type) {
+            case TEST_PLAN:
+                context.log(success ? "该测试计划已完成" : "该测试计划失败");
                 break;
+            case PERFORMANCE:
+                //更新测试计划下性能测试状态
+                meterSphereClient.updateStateLoad(handle.getTestPlanId(), handle.getTargetId(), success ? "success" : "Error");
+                meterSphereClient.changeState(handle.getTargetId(), success ? Results.PASS : Results.FAILURE);
+                break;
+            case UI:
+                meterSphereClient.changeState(handle.getTargetId(), success ? Results.PASS : Results.FAILURE);
+                break;
+            default:
+                break;
+        }
+        String reportUrl = getReportUrl(meterSphereClient, handle, context.getOpenMode());
+        if (reportUrl != null) {
+            if (type == RunType.TEST_PLAN) {
+                context.log("点击链接进入测试计划报告页面:" + reportUrl);
+            } else {
+                context.log("点击链接进入" + handle.getName() + "测试报告页面: " + reportUrl);
+            }
         }
+        context.recordFinished(success);
+        return success;
+    }
 
-        if (flag) {
-            log("该测试用例请求通过，登陆MeterSphere网站查看该报告结果");
+    /**
+     * 停止 MeterSphere 上的执行，释放资源池
+     */
+    public static void stopRemote(ExecutionContext context, RunHandle handle) {
+        MeterSphereClient meterSphereClient = context.getClient();
+        RunType type = handle.getType();
+        CompletableFuture<Void> stop = handle.getReportId() == null ? null : type.stop(meterSphereClient, handle.getReportId());
+        if (stop == null) {
+            context.log(type.getLabel() + "不支持停止，请在MeterSphere中手动停止: " + handle.getPollId());
         } else {
-            log("该测试用例请求未能通过，登陆MeterSphere网站查看该报告结果");
+            try {
+                stop.get(STOP_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+                context.log("已停止MeterSphere上的执行，报告id:" + handle.getReportId());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                context.log("停止MeterSphere上的执行被中断，报告id:" + handle.getReportId());
+            } catch (Exception e) {
+                context.log("停止MeterSphere上的执行失败：" + e.getMessage());
+            }
+        }
+        RunJournal.ended(context.getRun(), meterSphereClient, handle);
+    }
+
+    private static String getReportUrl(MeterSphereClient meterSphereClient, RunHandle handle, String openMode) {
+        RunType type = handle.getType();
+        if (type.getReportViewPath() == null || handle.getReportId() == null) {
+            return null;
+        }
+        String url = meterSphereClient.getBaseInfo();
+        String reportView = type.getReportViewPath() + handle.getReportId();
+        if (StringUtils.equals(openMode, "anon")) {
+            Map<String, String> params = new HashMap<>();
+            params.put("customData", handle.getReportId());
+            params.put("shareType", type.getShareType());
+            String shareUrl = meterSphereClient.getShareInfo(params);
+            reportView = type.getSharePath() + shareUrl;
+        }
+        return url + reportView;
+    }
+
+    /**
+     * 按并发上限提交多个测试并等待全部结束，同时执行中的测试不超过 maxConcurrency 个，结束一个再提交下一个。
+     * 空闲名额内同一项目的场景/UI测试合并为一次批量提交。
+     * 等待都在当前构建线程中进行：构建被中止时停止所有执行中的测试，Jenkins 停止时保留执行，重启后继续跟踪；
+     * 单个测试等待超时只停止该测试。
+     *
+     * @return 是否全部通过
+     */
+    public static boolean runAll(ExecutionContext context, List<RunTarget> targets, int maxConcurrency) throws InterruptedException {
+        int limit = Math.max(1, maxConcurrency);
+        Deque<RunTarget> pending = new ArrayDeque<>(targets);
+        List<InFlight> inFlight = new ArrayList<>();
+        Map<RunTarget, Boolean> outcomes = new LinkedHashMap<>();
+        try {
+            while (!pending.isEmpty() || !inFlight.isEmpty()) {
+                while (inFlight.size() < limit && !pending.isEmpty()) {
+                    List<RunTarget> batch = takeBatch(pending, limit - inFlight.size());
+                    Map<RunTarget, RunHandle> handles = new LinkedHashMap<>();
+                    try {
+                        if (batch.size() == 1) {
+                            handles.put(batch.get(0), batch.get(0).start());
+                        } else {
+                            handles.putAll(RunTarget.startBatch(context, batch));
+                        }
+                    } catch (Exception e) {
+                        for (RunTarget target : batch) {
+                            context.log(target.getName() + "发生异常：" + e.getMessage());
+                            complete(context, target, false, outcomes);
+                        }
+                        continue;
+                    }
+                    for (RunTarget target : batch) {
+                        RunHandle handle = handles.get(target);
+                        if (handle != null) {
+                            inFlight.add(new InFlight(target, handle, track(context, handle)));
+                        } else if (batch.size() == 1) {
+                            // 不支持的测试类型，与单独执行时一致视为通过
+                            complete(context, target, true, outcomes);
+                        } else {
+                            context.log(target.getName() + "批量提交未返回报告");
+                            complete(context, target, false, outcomes);
+                        }
+                    }
+                }
+                if (inFlight.isEmpty()) {
+                    continue;
+                }
+                try {
+                    CompletableFuture.anyOf(inFlight.stream().map(f -> f.result).toArray(CompletableFuture[]::new)).get();
+                } catch (ExecutionException e) {
+                    // 失败的测试在下面逐个处理
+                }
+                for (Iterator<InFlight> iterator = inFlight.iterator(); iterator.hasNext(); ) {
+                    InFlight current = iterator.next();
+                    if (current.result.isDone()) {
+                        iterator.remove();
+                        complete(context, current.target, finish(context, current), outcomes);
+                    }
+                }
+            }
+        } catch (InterruptedException e) {
+            // Jenkins 停止时保留远程执行，重启后继续跟踪；其他中断（用户、系统或其他插件中止构建）都停止远程执行
+            boolean aborted = !RunStatusScheduler.isShuttingDown();
+            if (aborted) {
+                context.log("构建已中止");
+            }
+            for (InFlight current : inFlight) {
+                current.result.cancel(false);
+                if (aborted) {
+                    stopRemote(context, current.handle);
+                }
+            }
+            throw e;
+        }
+
+        long passed = outcomes.values().stream().filter(Boolean::booleanValue).count();
+        if (targets.size() > 1) {
+            context.log("执行结果汇总：");
+            outcomes.forEach((target, success) -> context.log("  " + target.getName() + ": " + (success ? "通过" : "未通过")));
+            context.log("通过 " + passed + "/" + targets.size() + "，用时 " + ProgressReporter.formatElapsed(context.getElapsedMillis()));
+            context.log("提交执行 " + context.getSubmitted() + " 个，结束时通过 " + context.getPassed()
+                    + " 个，未通过 " + context.getFailed() + " 个");
+        }
+        return passed == targets.size();
+    }
+
+    /**
+     * 取出下一个测试，以及最多 slots 个可以与它合并提交的测试
+     */
+    private static List<RunTarget> takeBatch(Deque<RunTarget> pending, int slots) {
+        List<RunTarget> batch = new ArrayList<>();
+        RunTarget first = pending.poll();
+        batch.add(first);
+        if (first.batchKey == null) {
+            return batch;
+        }
+        for (Iterator<RunTarget> iterator = pending.iterator(); iterator.hasNext() && batch.size() < slots; ) {
+            RunTarget next = iterator.next();
+            if (first.batchKey.equals(next.batchKey)) {
+                iterator.remove();
+                batch.add(next);
+            }
+        }
+        return batch;
+    }
+
+    private static boolean finish(ExecutionContext context, InFlight current) {
+        String status;
+        try {
+            status = current.result.join();
+        } catch (CompletionException | CancellationException e) {
+            Throwable cause = e instanceof CompletionException ? e.getCause() : e;
+            context.log(current.target.getName() + "发生异常：" + cause.getMessage());
+            context.recordFinished(false);
+            if (cause instanceof RunTimeoutException) {
+                stopRemote(context, current.handle);
+            }
+            return false;
+        }
+        try {
+            return finish(context, current.handle, status);
+        } catch (Exception e) {
+            context.log(current.target.getName() + "发生异常：" + e.getMessage());
+            context.recordFinished(false);
+            return false;
+        }
+    }
+
+    private static void complete(ExecutionContext context, RunTarget target, boolean success, Map<RunTarget, Boolean> outcomes) {
+        outcomes.put(target, success);
+        if (target.isTestCase()) {
+            if (success) {
+                context.log("该测试用例请求通过，登陆MeterSphere网站查看该报告结果");
+            } else {
+                context.log("该测试用例请求未能通过，登陆MeterSphere网站查看该报告结果");
+            }
+        }
+    }
+
+    /**
+     * 拆分逗号或换行分隔的多个测试计划/测试名称或ID
+     */
+    public static List<String> splitTargets(String value) {
+        List<String> result = new ArrayList<>();
+        if (StringUtils.isBlank(value)) {
+            return result;
+        }
+        for (String item : value.split("[,\\r\\n]+")) {
+            String trimmed = item.trim();
+            if (StringUtils.isNotEmpty(trimmed) && !result.contains(trimmed)) {
+                result.add(trimmed);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * 一次构建中要执行的一个测试计划或测试
+     */
+    public static class RunTarget {
+        private final String name;
+        private final boolean testCase;
+        private final Supplier<RunHandle> starter;
+        // 可以合并提交的测试有相同的值，不能批量提交时为null
+        private String batchKey;
+        private TestCaseDTO testCaseDTO;
+        private Function<List<TestCaseDTO>, Map<String, RunHandle>> batchStarter;
+
+        private RunTarget(String name, boolean testCase, Supplier<RunHandle> starter) {
+            this.name = name;
+            this.testCase = testCase;
+            this.starter = starter;
+        }
+
+        public static RunTarget testPlan(ExecutionContext context, String projectId, String mode, String testPlanId,
+                                         String testPlanName, String resourcePoolId) {
+            return new RunTarget("测试计划[" + testPlanName + "]", false,
+                    () -> startTestPlan(context, projectId, mode, testPlanId, resourcePoolId));
+        }
+
+        public static RunTarget testCase(ExecutionContext context, String projectId, TestCaseDTO testCase,
+                                         String testPlanId, String resourcePoolId) {
+            RunTarget target = new RunTarget(getDisplayName(testCase), true, () -> {
+                logTestCase(context, testCase);
+                return startTestCase(context, projectId, testCase, testPlanId, resourcePoolId);
+            });
+            RunType type = getRunType(testCase);
+            if (type == RunType.SCENARIO || type == RunType.UI) {
+                target.batchKey = type + "|" + projectId + "|" + testPlanId + "|" + resourcePoolId;
+                target.testCaseDTO = testCase;
+                target.batchStarter = cases -> startTestCases(context, projectId, type, cases, testPlanId, resourcePoolId);
+            }
+            return target;
+        }
+
+        /**
+         * 合并提交 batchKey 相同的多个测试
+         */
+        static Map<RunTarget, RunHandle> startBatch(ExecutionContext context, List<RunTarget> batch) {
+            List<TestCaseDTO> cases = new ArrayList<>();
+            for (RunTarget target : batch) {
+                logTestCase(context, target.testCaseDTO);
+                cases.add(target.testCaseDTO);
+            }
+            Map<String, RunHandle> handles = batch.get(0).batchStarter.apply(cases);
+            Map<RunTarget, RunHandle> result = new LinkedHashMap<>();
+            for (RunTarget target : batch) {
+                result.put(target, handles.get(target.testCaseDTO.getId()));
+            }
+            return result;
+        }
+
+        private static void logTestCase(ExecutionContext context, TestCaseDTO testCase) {
+            context.log("测试ID: " + testCase.getId());
+            context.log("测试名称: " + getDisplayName(testCase));
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public boolean isTestCase() {
+            return testCase;
+        }
+
+        RunHandle start() {
+            return starter.get();
         }
-        return flag;
     }
 
+    private static class InFlight {
+        private final RunTarget target;
+        private final RunHandle handle;
+        private final CompletableFuture<String> result;
 
+        InFlight(RunTarget target, RunHandle handle, CompletableFuture<String> result) {
+            this.target = target;
+            this.handle = handle;
+            this.result = result;
+        }
+    }
 }
@@ -0,0 +1,72 @@
+package io.metersphere.commons.utils;
+
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * 把轮询到的执行状态输出到构建控制台：只在状态变化时输出，状态不变时按间隔输出一行带已用时长的进度，
+ * 结束时输出一行汇总。长时间的性能测试不再每次查询都写一行日志。
+ */
+public final class ProgressReporter implements Consumer<String> {
+
+    // 状态不变时输出进度的间隔，单位秒，不大于0时不输出
+    private static final long HEARTBEAT_MILLIS = TimeUnit.SECONDS.toMillis(
+            Long.getLong("io.metersphere.progress.heartbeatSeconds", 300L));
+
+    private final ExecutionContext context;
+    private final String name;
+    private final long startedAt = System.currentTimeMillis();
+    private String lastStatus;
+    private long lastLoggedAt;
+    private int polls;
+    private int transitions;
+
+    /**
+     * @param name 输出时使用的执行名称，如 "场景[登录]"
+     */
+    public ProgressReporter(ExecutionContext context, String name) {
+        this.context = context;
+        this.name = name;
+    }
+
+    @Override
+    public synchronized void accept(String status) {
+        polls++;
+        long now = System.currentTimeMillis();
+        if (!Objects.equals(status, lastStatus)) {
+            transitions++;
+            lastStatus = status;
+            lastLoggedAt = now;
+            context.log(name + "执行状态：" + status);
+        } else if (HEARTBEAT_MILLIS > 0 && now - lastLoggedAt >= HEARTBEAT_MILLIS) {
+            lastLoggedAt = now;
+            context.log(name + "仍在执行：" + status + "，已用时 " + formatElapsed(now - startedAt));
+        }
+    }
+
+    /**
+     * 输出结束汇总
+     *
+     * @param status 结束状态，超时或查询失败时为null
+     */
+    public synchronized void finished(String status) {
+        context.log(name + "执行结束：" + (status == null ? "未完成" : status)
+                + "，用时 " + formatElapsed(System.currentTimeMillis() - startedAt)
+                + "，查询 " + polls + " 次，状态变化 " + transitions + " 次");
+    }
+
+    static String formatElapsed(long millis) {
+        long seconds = TimeUnit.MILLISECONDS.toSeconds(millis);
+        long hours = seconds / 3600;
+        long minutes = seconds % 3600 / 60;
+        StringBuilder text = new StringBuilder();
+        if (hours > 0) {
+            text.append(hours).append("小时");
+        }
+        if (hours > 0 || minutes > 0) {
+            text.append(minutes).append("分");
+        }
+        return text.append(seconds % 60).append("秒").toString();
+    }
+}
@@ -0,0 +1,133 @@
+package io.metersphere.commons.utils;
+
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * 构建时按ID、名称或显示名称查找测试计划、测试、项目使用的只读索引，列表加载后构建一次。
+ * 名称或显示名称重复时取列表中的第一个，与逐个查找的结果一致。
+ * 使用开放寻址的散列表，只保存元素在列表中的位置，不持有元素和名称，查找时再按位置与列表中的值比较。
+ */
+public final class ResolutionIndex<T> {
+
+    private final List<T> items;
+    private final Column byId;
+    private final Column byName;
+    private final Column byLabel;
+
+    private ResolutionIndex(List<T> items, Column byId, Column byName, Column byLabel) {
+        this.items = items;
+        this.byId = byId;
+        this.byName = byName;
+        this.byLabel = byLabel;
+    }
+
+    /**
+     * @param label 显示名称，不需要时为null
+     */
+    public static <T> ResolutionIndex<T> build(List<T> items, Function<T, String> id, Function<T, String> name,
+                                               Function<T, String> label) {
+        return buildAt(items, keyOf(items, id), keyOf(items, name), label == null ? null : keyOf(items, label));
+    }
+
+    /**
+     * 按位置读取和比较键，列表按列保存时可以不生成元素
+     *
+     * @param label 显示名称，不需要时为null
+     */
+    public static <T> ResolutionIndex<T> buildAt(List<T> items, Key id, Key name, Key label) {
+        return new ResolutionIndex<>(items, Column.build(items.size(), id), Column.build(items.size(), name),
+                label == null ? null : Column.build(items.size(), label));
+    }
+
+    private static <T> Key keyOf(List<T> items, Function<T, String> key) {
+        return position -> key.apply(items.get(position));
+    }
+
+    public T getById(String id) {
+        return find(byId, id);
+    }
+
+    public T getByName(String name) {
+        return find(byName, name);
+    }
+
+    public T getByLabel(String label) {
+        return find(byLabel, label);
+    }
+
+    private T find(Column column, String key) {
+        if (column == null || key == null) {
+            return null;
+        }
+        int position = column.find(key);
+        return position < 0 ? null : items.get(position);
+    }
+
+    /**
+     * 列表中第 position 个元素的键
+     */
+    public interface Key {
+        String of(int position);
+
+        /**
+         * 第 position 个元素的键是否与 value 相同，可以直接与列表的存储比较，不生成键
+         */
+        default boolean matches(int position, String value) {
+            return value.equals(of(position));
+        }
+    }
+
+    private static final class Column {
+        private final Key key;
+        // 元素位置加1，0表示空位
+        private final int[] slots;
+
+        private Column(Key key, int[] slots) {
+            this.key = key;
+            this.slots = slots;
+        }
+
+        static Column build(int size, Key key) {
+            // 容量为2的幂且不小于元素数的两倍，保证有空位
+            int capacity = Integer.highestOneBit(Math.max(1, size) * 2) << 1;
+            int[] slots = new int[capacity];
+            for (int i = 0; i < size; i++) {
+                String value = key.of(i);
+                if (value == null) {
+                    continue;
+                }
+                int slot = spread(value.hashCode()) & (capacity - 1);
+                boolean duplicate = false;
+                while (slots[slot] != 0) {
+                    if (key.matches(slots[slot] - 1, value)) {
+                        duplicate = true;
+                        break;
+                    }
+                    slot = (slot + 1) & (capacity - 1);
+                }
+                if (!duplicate) {
+                    slots[slot] = i + 1;
+                }
+            }
+            return new Column(key, slots);
+        }
+
+        /**
+         * @return 元素位置，没有时为-1
+         */
+        int find(String value) {
+            int mask = slots.length - 1;
+            for (int slot = spread(value.hashCode()) & mask; slots[slot] != 0; slot = (slot + 1) & mask) {
+                if (key.matches(slots[slot] - 1, value)) {
+                    return slots[slot] - 1;
+                }
+            }
+            return -1;
+        }
+
+        private static int spread(int hash) {
+            return hash ^ (hash >>> 16);
+        }
+    }
+}
@@ -0,0 +1,190 @@
+package io.metersphere.commons.utils;
+
+import org.apache.commons.lang.StringUtils;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.function.IntFunction;
+
+/**
+ * 自动补全使用的只读索引，列表加载后构建一次。
+ * 名称统一转为小写后，按长度 1 到 3 的片段建立倒排表：输入不超过 3 个字符时直接取倒排表，
+ * 更长的输入取其中最短的倒排表再逐条校验。结果按 完全相同、前缀、单词开头、包含 的顺序排列，同级时名称短的在前。
+ * 索引只保存倒排表，名称在查询时按位置从列表中读取，不另外保存一份。
+ */
+public final class SearchIndex<T> {
+
+    private static final int GRAM = 3;
+
+    private static final int EXACT = 0;
+    private static final int PREFIX = 1;
+    private static final int WORD_START = 2;
+    private static final int CONTAINS = 3;
+
+    private final List<T> items;
+    // 按位置读取名称
+    private final IntFunction<String> labels;
+    // 片段 -> 包含该片段的名称下标，按名称长度排列
+    private final Map<String, int[]> postings;
+
+    private SearchIndex(List<T> items, IntFunction<String> labels, Map<String, int[]> postings) {
+        this.items = items;
+        this.labels = labels;
+        this.postings = postings;
+    }
+
+    /**
+     * 直接引用传入的列表，不复制，构建后不应再修改该列表
+     */
+    public static <T> SearchIndex<T> build(List<T> items, Function<T, String> labeler) {
+        return buildAt(items, position -> labeler.apply(items.get(position)));
+    }
+
+    /**
+     * 按位置读取名称，列表按列保存时可以不生成元素
+     */
+    public static <T> SearchIndex<T> buildAt(List<T> items, IntFunction<String> labeler) {
+        IntFunction<String> labels = position -> StringUtils.defaultString(labeler.apply(position));
+        int size = items.size();
+        // 构建时临时使用的标准化名称
+        String[] normalized = new String[size];
+        Integer[] order = new Integer[size];
+        for (int i = 0; i < size; i++) {
+            normalized[i] = normalize(labels.apply(i));
+            order[i] = i;
+        }
+        // 按名称长度排列，倒排表中靠前的就是同级中排名靠前的
+        Arrays.sort(order, (a, b) -> normalized[a].length() != normalized[b].length()
+                ? Integer.compare(normalized[a].length(), normalized[b].length())
+                : Integer.compare(a, b));
+        Map<String, Postings> grams = new HashMap<>();
+        Set<String> seen = new HashSet<>();
+        for (int index : order) {
+            seen.clear();
+            String label = normalized[index];
+            for (int start = 0; start < label.length(); start++) {
+                for (int end = start + 1; end <= Math.min(label.length(), start + GRAM); end++) {
+                    String gram = label.substring(start, end);
+                    if (seen.add(gram)) {
+                        grams.computeIfAbsent(gram, k -> new Postings()).add(index);
+                    }
+                }
+            }
+        }
+        Map<String, int[]> postings = new HashMap<>(grams.size() * 4 / 3 + 1);
+        grams.forEach((gram, ids) -> postings.put(gram, ids.toArray()));
+        return new SearchIndex<>(Collections.unmodifiableList(items), labels, postings);
+    }
+
+    public List<T> getItems() {
+        return items;
+    }
+
+    /**
+     * 查找包含输入内容的名称，忽略大小写
+     *
+     * @param limit 最多返回的条数
+     */
+    public List<String> search(String query, int limit) {
+        String q = normalize(query);
+        if (q.isEmpty() || limit <= 0) {
+            List<String> first = new ArrayList<>();
+            for (int i = 0; i < Math.min(limit, items.size()); i++) {
+                first.add(labels.apply(i));
+            }
+            return first;
+        }
+        int[] candidates = candidates(q);
+        if (candidates.length == 0) {
+            return Collections.emptyList();
+        }
+        // 候选项已按名称长度排列，每级只需收集前 limit 条
+        int[][] ranks = new int[CONTAINS + 1][limit];
+        int[] counts = new int[CONTAINS + 1];
+        for (int index : candidates) {
+            String label = normalize(labels.apply(index));
+            // 超过 3 个字符时候选项只包含其中一个片段，需要校验
+            int position = label.indexOf(q);
+            if (position < 0) {
+                continue;
+            }
+            int rank = rank(label, q, position);
+            if (counts[rank] < limit) {
+                ranks[rank][counts[rank]++] = index;
+            }
+            // 已收集到足够的完全相同和前缀匹配，之后的候选项不比它们短，不会排在它们前面
+            if (counts[EXACT] + counts[PREFIX] >= limit) {
+                break;
+            }
+        }
+        List<String> result = new ArrayList<>(limit);
+        for (int rank = 0; rank <= CONTAINS && result.size() < limit; rank++) {
+            for (int i = 0; i < counts[rank] && result.size() < limit; i++) {
+                result.add(labels.apply(ranks[rank][i]));
+            }
+        }
+        return result;
+    }
+
+    private int[] candidates(String q) {
+        if (q.length() <= GRAM) {
+            int[] ids = postings.get(q);
+            return ids == null ? new int[0] : ids;
+        }
+        // 取所有片段中最短的倒排表
+        int[] shortest = null;
+        for (int start = 0; start + GRAM <= q.length(); start++) {
+            int[] ids = postings.get(q.substring(start, start + GRAM));
+            if (ids == null) {
+                return new int[0];
+            }
+            if (shortest == null || ids.length < shortest.length) {
+                shortest = ids;
+            }
+        }
+        return shortest;
+    }
+
+    private static int rank(String label, String q, int position) {
+        if (position == 0) {
+            return label.length() == q.length() ? EXACT : PREFIX;
+        }
+        if (!Character.isLetterOrDigit(label.charAt(position - 1))) {
+            return WORD_START;
+        }
+        // 第一次出现不在单词开头时，后面的出现可能在
+        for (int next = label.indexOf(q, position + 1); next > 0; next = label.indexOf(q, next + 1)) {
+            if (!Character.isLetterOrDigit(label.charAt(next - 1))) {
+                return WORD_START;
+            }
+        }
+        return CONTAINS;
+    }
+
+    private static String normalize(String value) {
+        return value == null ? "" : value.trim().toLowerCase();
+    }
+
+    private static class Postings {
+        private int[] ids = new int[4];
+        private int size;
+
+        void add(int id) {
+            if (size == ids.length) {
+                ids = Arrays.copyOf(ids, size * 2);
+            }
+            ids[size++] = id;
+        }
+
+        int[] toArray() {
+            return Arrays.copyOf(ids, size);
+        }
+    }
+}
@@ -0,0 +1,39 @@
+package io.metersphere;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * 回调的重放检查
+ */
+public class MeterSphereCallbackActionTest {
+
+    private static final long MAX_SKEW_MILLIS = 300000L;
+
+    @Test
+    public void rejectsReplayedSignature() {
+        long now = System.currentTimeMillis();
+        assertTrue(MeterSphereCallbackAction.markSeen("replayed", now, MAX_SKEW_MILLIS));
+        assertFalse(MeterSphereCallbackAction.markSeen("replayed", now + 1000, MAX_SKEW_MILLIS));
+        assertTrue(MeterSphereCallbackAction.markSeen("another", now + 1000, MAX_SKEW_MILLIS));
+    }
+
+    @Test
+    public void acceptsSignatureAgainAfterItIsForgotten() {
+        long now = System.currentTimeMillis();
+        assertTrue(MeterSphereCallbackAction.markSeen("unknown-report", now, MAX_SKEW_MILLIS));
+        // 报告未登记或签名校验失败时不占用重放记录
+        MeterSphereCallbackAction.forget("unknown-report");
+        assertTrue(MeterSphereCallbackAction.markSeen("unknown-report", now, MAX_SKEW_MILLIS));
+    }
+
+    @Test
+    public void dropsSignaturesOlderThanTheSkewWindow() {
+        long now = System.currentTimeMillis();
+        assertTrue(MeterSphereCallbackAction.markSeen("expired", now, MAX_SKEW_MILLIS));
+        // 超过两倍误差的签名时间戳已无法通过校验，记录可以清理
+        assertTrue(MeterSphereCallbackAction.markSeen("expired", now + 2 * MAX_SKEW_MILLIS + 1, MAX_SKEW_MILLIS));
+    }
+}
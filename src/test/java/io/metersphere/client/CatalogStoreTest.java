@@ -0,0 +1,64 @@
+package io.metersphere.client;
+
+import io.metersphere.commons.model.TestPlanDTO;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * 本地副本的范围和列表版本，不涉及 JENKINS_HOME 中的文件
+ */
+public class CatalogStoreTest {
+
+    private static final String SCOPE = "testPlans|project-1|workspace-1";
+
+    private static TestPlanDTO plan(String id, String name, Long updateTime) {
+        TestPlanDTO plan = new TestPlanDTO();
+        plan.setId(id);
+        plan.setName(name);
+        plan.setUpdateTime(updateTime);
+        return plan;
+    }
+
+    @Test
+    public void persistsOnlyTestCasesAndTestPlans() {
+        assertTrue(CatalogStore.isPersistent("testCases|project-1"));
+        assertTrue(CatalogStore.isPersistent(SCOPE));
+        assertFalse(CatalogStore.isPersistent("projects|workspace-1"));
+        assertFalse(CatalogStore.isPersistent("workspaces"));
+    }
+
+    @Test
+    public void versionIsStableForTheSameList() {
+        List<TestPlanDTO> plans = Arrays.asList(plan("1", "冒烟", 100L), plan("2", "回归", 200L));
+        String version = CatalogStore.version(SCOPE, plans);
+        assertNotNull(version);
+        assertTrue(version.startsWith("v:"));
+        assertEquals(version, CatalogStore.version(SCOPE, Arrays.asList(plan("1", "冒烟", 100L), plan("2", "回归", 200L))));
+    }
+
+    @Test
+    public void versionChangesWithIdNameUpdateTimeOrOrder() {
+        String version = CatalogStore.version(SCOPE, Arrays.asList(plan("1", "冒烟", 100L), plan("2", "回归", 200L)));
+        assertFalse(version.equals(CatalogStore.version(SCOPE, Arrays.asList(plan("1", "冒烟", 101L), plan("2", "回归", 200L)))));
+        assertFalse(version.equals(CatalogStore.version(SCOPE, Arrays.asList(plan("1", "冒烟2", 100L), plan("2", "回归", 200L)))));
+        assertFalse(version.equals(CatalogStore.version(SCOPE, Arrays.asList(plan("3", "冒烟", 100L), plan("2", "回归", 200L)))));
+        assertFalse(version.equals(CatalogStore.version(SCOPE, Arrays.asList(plan("2", "回归", 200L), plan("1", "冒烟", 100L)))));
+        assertFalse(version.equals(CatalogStore.version(SCOPE, Collections.singletonList(plan("1", "冒烟", 100L)))));
+    }
+
+    @Test
+    public void noVersionWithoutUpdateTimeOrForOtherLists() {
+        assertNull(CatalogStore.version(SCOPE, Arrays.asList(plan("1", "冒烟", 100L), plan("2", "回归", null))));
+        assertNull(CatalogStore.version("testCases|project-1", Collections.emptyList()));
+        assertNull(CatalogStore.version(SCOPE, null));
+    }
+}
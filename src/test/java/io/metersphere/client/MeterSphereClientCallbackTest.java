@@ -0,0 +1,69 @@
+package io.metersphere.client;
+
+import org.apache.commons.codec.binary.Base64;
+import org.junit.Test;
+
+import javax.crypto.Cipher;
+import javax.crypto.spec.IvParameterSpec;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * 回调签名校验，签名按 MeterSphere 服务器的方式在本地生成
+ */
+public class MeterSphereClientCallbackTest {
+
+    private static final String ACCESS_KEY = "0123456789abcdef";
+    private static final String SECRET_KEY = "fedcba9876543210";
+    private static final long MAX_SKEW_MILLIS = 300000L;
+
+    private final MeterSphereClient client = new MeterSphereClient(ACCESS_KEY, SECRET_KEY, "http://localhost:8081");
+
+    @Test
+    public void acceptsValidSignature() throws Exception {
+        String signature = sign(ACCESS_KEY + "|report-1|SUCCESS|" + System.currentTimeMillis());
+        assertTrue(client.verifyCallback(signature, "report-1", "SUCCESS", MAX_SKEW_MILLIS));
+    }
+
+    @Test
+    public void rejectsPayloadNotMatchingSignature() throws Exception {
+        String signature = sign(ACCESS_KEY + "|report-1|ERROR|" + System.currentTimeMillis());
+        assertFalse(client.verifyCallback(signature, "report-1", "SUCCESS", MAX_SKEW_MILLIS));
+        assertFalse(client.verifyCallback(signature, "report-2", "ERROR", MAX_SKEW_MILLIS));
+    }
+
+    @Test
+    public void rejectsTamperedSignature() throws Exception {
+        byte[] raw = Base64.decodeBase64(sign(ACCESS_KEY + "|report-1|SUCCESS|" + System.currentTimeMillis()));
+        raw[0] ^= 1;
+        assertFalse(client.verifyCallback(Base64.encodeBase64String(raw), "report-1", "SUCCESS", MAX_SKEW_MILLIS));
+        assertFalse(client.verifyCallback("not-a-signature", "report-1", "SUCCESS", MAX_SKEW_MILLIS));
+        assertFalse(client.verifyCallback("", "report-1", "SUCCESS", MAX_SKEW_MILLIS));
+    }
+
+    @Test
+    public void rejectsSignatureOfAnotherAccount() throws Exception {
+        MeterSphereClient other = new MeterSphereClient("abcdef0123456789", "0011223344556677", "http://localhost:8081");
+        String signature = sign(ACCESS_KEY + "|report-1|SUCCESS|" + System.currentTimeMillis());
+        assertFalse(other.verifyCallback(signature, "report-1", "SUCCESS", MAX_SKEW_MILLIS));
+    }
+
+    @Test
+    public void rejectsExpiredTimestamp() throws Exception {
+        long now = System.currentTimeMillis();
+        assertFalse(client.verifyCallback(sign(ACCESS_KEY + "|report-1|SUCCESS|" + (now - 2 * MAX_SKEW_MILLIS)),
+                "report-1", "SUCCESS", MAX_SKEW_MILLIS));
+        assertFalse(client.verifyCallback(sign(ACCESS_KEY + "|report-1|SUCCESS|" + (now + 2 * MAX_SKEW_MILLIS)),
+                "report-1", "SUCCESS", MAX_SKEW_MILLIS));
+    }
+
+    private static String sign(String plain) throws Exception {
+        Cipher cipher = Cipher.getInstance("AES/CBC/PKCS5Padding");
+        cipher.init(Cipher.ENCRYPT_MODE, new SecretKeySpec(SECRET_KEY.getBytes(StandardCharsets.UTF_8), "AES"),
+                new IvParameterSpec(ACCESS_KEY.getBytes(StandardCharsets.UTF_8)));
+        return Base64.encodeBase64String(cipher.doFinal(plain.getBytes(StandardCharsets.UTF_8)));
+    }
+}
@@ -0,0 +1,53 @@
+package io.metersphere.client;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+/**
+ * 轮询间隔的计算，按默认的最小间隔 200 毫秒、最大间隔 30 秒
+ */
+public class PollingPolicyTest {
+
+    private static final long MIN_DELAY_MILLIS = 200L;
+
+    @Test
+    public void backsOffWithElapsedTimeWithinBounds() {
+        assertEquals(MIN_DELAY_MILLIS, PollingPolicy.initialDelay(null));
+        assertEquals(MIN_DELAY_MILLIS, PollingPolicy.nextDelay(400, null));
+        assertEquals(10000L, PollingPolicy.nextDelay(40000, null));
+        assertEquals(PollingPolicy.getMaxDelayMillis(), PollingPolicy.nextDelay(3600000, null));
+    }
+
+    @Test
+    public void approachesExpectedEndByHalvingTheRemainingTime() {
+        assertEquals(10000L, PollingPolicy.initialDelay(20000L));
+        assertEquals(2000L, PollingPolicy.nextDelay(16000, 20000L));
+        assertEquals(MIN_DELAY_MILLIS, PollingPolicy.nextDelay(19900, 20000L));
+    }
+
+    @Test
+    public void backsOffAgainFromTheExpectedEnd() {
+        assertEquals(MIN_DELAY_MILLIS, PollingPolicy.nextDelay(20000, 20000L));
+        assertEquals(10000L, PollingPolicy.nextDelay(60000, 20000L));
+    }
+
+    @Test
+    public void smoothsRecordedDurations() {
+        String key = "http://localhost|SCENARIO|smooth";
+        PollingPolicy.record(key, 10000);
+        assertEquals(10000L, PollingPolicy.expectedDuration(key).longValue());
+        PollingPolicy.record(key, 20000);
+        assertEquals(13000L, PollingPolicy.expectedDuration(key).longValue());
+    }
+
+    @Test
+    public void ignoresMissingKeysAndEmptyDurations() {
+        String key = "http://localhost|SCENARIO|empty";
+        PollingPolicy.record(key, 0);
+        PollingPolicy.record(null, 10000);
+        assertNull(PollingPolicy.expectedDuration(key));
+        assertNull(PollingPolicy.expectedDuration(null));
+    }
+}
@@ -0,0 +1,64 @@
+package io.metersphere.client;
+
+import com.alibaba.fastjson.JSONObject;
+import org.junit.Test;
+
+import java.io.BufferedReader;
+import java.io.StringReader;
+import java.util.Arrays;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * 执行记录的重放和记录id，不涉及 JENKINS_HOME 中的文件
+ */
+public class RunJournalTest {
+
+    private static Map<String, JSONObject> replay(String... lines) throws Exception {
+        return RunJournal.replay(new BufferedReader(new StringReader(String.join("\n", lines))));
+    }
+
+    @Test
+    public void keepsOnlyRecordsWithoutEnd() throws Exception {
+        Map<String, JSONObject> live = replay(
+                "{\"op\":\"start\",\"id\":\"a\",\"reportId\":\"report-a\"}",
+                "{\"op\":\"start\",\"id\":\"b\",\"reportId\":\"report-b\"}",
+                "{\"op\":\"end\",\"id\":\"a\"}",
+                "{\"op\":\"start\",\"id\":\"c\",\"reportId\":\"report-c\"}");
+        assertEquals(Arrays.asList("b", "c"), Arrays.asList(live.keySet().toArray()));
+        assertEquals("report-b", live.get("b").getString("reportId"));
+    }
+
+    @Test
+    public void skipsIncompleteAndBlankLines() throws Exception {
+        Map<String, JSONObject> live = replay(
+                "{\"op\":\"start\",\"id\":\"a\"}",
+                "",
+                "{\"op\":\"start\",\"id\":\"b\",\"repo");
+        assertEquals(Arrays.asList("a"), Arrays.asList(live.keySet().toArray()));
+    }
+
+    @Test
+    public void laterStartReplacesEarlierRecord() throws Exception {
+        Map<String, JSONObject> live = replay(
+                "{\"op\":\"start\",\"id\":\"a\",\"reportId\":\"old\"}",
+                "{\"op\":\"start\",\"id\":\"a\",\"reportId\":\"new\"}");
+        assertEquals(1, live.size());
+        assertEquals("new", live.get("a").getString("reportId"));
+    }
+
+    @Test
+    public void sameCaseInDifferentBuildsGetsDifferentIds() {
+        MeterSphereClient client = new MeterSphereClient("0123456789abcdef", "fedcba9876543210", "http://localhost:8081");
+        // 接口测试的 pollId 是用例ID
+        RunHandle handle = new RunHandle(RunType.DEFINITION, "case-1", null, "case-1", "登录", null);
+        String first = RunJournal.idOf("folder/job#1", client, handle);
+        String second = RunJournal.idOf("folder/job#2", client, handle);
+        assertFalse(first.equals(second));
+        assertEquals(first, RunJournal.idOf("folder/job#1", client, handle));
+        assertTrue(first.startsWith("http://localhost:8081|DEFINITION|case-1|"));
+    }
+}
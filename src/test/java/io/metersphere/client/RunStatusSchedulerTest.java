@@ -0,0 +1,95 @@
+package io.metersphere.client;
+
+import org.junit.Test;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * 执行结束回调的处理。服务器地址不可连接，轮询只会失败重试，结果都来自回调
+ */
+public class RunStatusSchedulerTest {
+
+    private static MeterSphereClient client(String name) {
+        return new MeterSphereClient("0123456789abcdef", "fedcba9876543210", "http://127.0.0.1:1/" + name);
+    }
+
+    private static RunHandle scenario(String reportId) {
+        return new RunHandle(RunType.SCENARIO, reportId, reportId, "scenario-" + reportId, "登录", null);
+    }
+
+    @Test
+    public void acceptedCallbackWakesWaiter() {
+        List<String> statuses = new CopyOnWriteArrayList<>();
+        CompletableFuture<String> waiter = RunStatusScheduler.track(client("wake"), scenario("report-wake"), statuses::add);
+
+        assertEquals(RunStatusScheduler.CallbackResult.ACCEPTED,
+                RunStatusScheduler.onCallback("report-wake", "Running", client -> true));
+        assertFalse(waiter.isDone());
+        assertEquals(RunStatusScheduler.CallbackResult.ACCEPTED,
+                RunStatusScheduler.onCallback("report-wake", "Success", client -> true));
+        assertTrue(waiter.isDone());
+        assertEquals("Success", waiter.join());
+        assertTrue(statuses.contains("Running"));
+        assertTrue(statuses.contains("Success"));
+    }
+
+    @Test
+    public void rejectsCallbackForUnknownOrFinishedReport() {
+        assertEquals(RunStatusScheduler.CallbackResult.UNKNOWN_REPORT,
+                RunStatusScheduler.onCallback("report-missing", "Success", client -> true));
+        assertEquals(RunStatusScheduler.CallbackResult.UNKNOWN_REPORT,
+                RunStatusScheduler.onCallback(null, "Success", client -> true));
+
+        CompletableFuture<String> waiter = RunStatusScheduler.track(client("finished"), scenario("report-finished"), null);
+        RunStatusScheduler.onCallback("report-finished", "Error", client -> true);
+        assertEquals("Error", waiter.join());
+        assertEquals(RunStatusScheduler.CallbackResult.UNKNOWN_REPORT,
+                RunStatusScheduler.onCallback("report-finished", "Success", client -> true));
+    }
+
+    @Test
+    public void rejectsCallbackFailingVerification() {
+        MeterSphereClient client = client("invalid");
+        CompletableFuture<String> waiter = RunStatusScheduler.track(client, scenario("report-invalid"), null);
+        try {
+            assertEquals(RunStatusScheduler.CallbackResult.INVALID_SIGNATURE,
+                    RunStatusScheduler.onCallback("report-invalid", "Success", c -> false));
+            assertFalse(waiter.isDone());
+            assertFalse(RunStatusScheduler.isCallbackTrusted(client, RunType.SCENARIO));
+        } finally {
+            waiter.cancel(true);
+        }
+    }
+
+    @Test
+    public void trustsCallbacksOnlyForTheReportedType() {
+        MeterSphereClient client = client("trust");
+        CompletableFuture<String> waiter = RunStatusScheduler.track(client, scenario("report-trust"), null);
+        RunStatusScheduler.onCallback("report-trust", "Success", c -> true);
+        assertEquals("Success", waiter.join());
+
+        assertTrue(RunStatusScheduler.isCallbackTrusted(client, RunType.SCENARIO));
+        assertFalse(RunStatusScheduler.isCallbackTrusted(client, RunType.UI));
+        assertFalse(RunStatusScheduler.isCallbackTrusted(client("other"), RunType.SCENARIO));
+    }
+
+    @Test
+    public void lastWaiterLeavingStopsTracking() {
+        MeterSphereClient client = client("detach");
+        CompletableFuture<String> first = RunStatusScheduler.track(client, scenario("report-detach"), null);
+        CompletableFuture<String> second = RunStatusScheduler.track(client, scenario("report-detach"), null);
+
+        first.cancel(true);
+        assertEquals(RunStatusScheduler.CallbackResult.ACCEPTED,
+                RunStatusScheduler.onCallback("report-detach", "Running", c -> true));
+        second.cancel(true);
+        assertEquals(RunStatusScheduler.CallbackResult.UNKNOWN_REPORT,
+                RunStatusScheduler.onCallback("report-detach", "Success", c -> true));
+    }
+}
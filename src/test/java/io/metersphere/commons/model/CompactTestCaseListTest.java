@@ -0,0 +1,108 @@
+package io.metersphere.commons.model;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * 按列保存的测试列表与原列表内容一致，按列比较与比较生成的字符串结果一致
+ */
+public class CompactTestCaseListTest {
+
+    private static final String UUID_ID = "3f2b6c1e-8a4d-4e2f-9b1c-0d5e7f8a9b0c";
+
+    private static TestCaseDTO testCase(String id, String name, String type, String versionName) {
+        TestCaseDTO testCase = new TestCaseDTO();
+        testCase.setId(id);
+        testCase.setName(name);
+        testCase.setProjectId("project-1");
+        testCase.setType(type);
+        testCase.setVersionName(versionName);
+        return testCase;
+    }
+
+    private final List<TestCaseDTO> source = Arrays.asList(
+            testCase(UUID_ID, "登录", "API", "v1"),
+            testCase("case-1", null, "SCENARIO", null),
+            testCase(UUID_ID.toUpperCase(), "", "API", "v1"),
+            testCase(null, "退出", null, "v2"));
+
+    private final CompactTestCaseList list = CompactTestCaseList.of(source);
+
+    @Test
+    public void keepsEveryColumn() {
+        assertEquals(source.size(), list.size());
+        for (int i = 0; i < source.size(); i++) {
+            TestCaseDTO expected = source.get(i);
+            TestCaseDTO actual = list.get(i);
+            assertEquals(expected.getId(), actual.getId());
+            assertEquals(expected.getName(), actual.getName());
+            assertEquals(expected.getProjectId(), actual.getProjectId());
+            assertEquals(expected.getType(), actual.getType());
+            assertEquals(expected.getVersionName(), actual.getVersionName());
+            assertEquals(expected.getId(), list.getId(i));
+            assertEquals(expected.getName(), list.getName(i));
+            assertEquals(expected.getType(), list.getType(i));
+            assertEquals(expected.getVersionName(), list.getVersionName(i));
+        }
+    }
+
+    @Test
+    public void comparesIdsWithoutBuildingThem() {
+        assertTrue(list.idEquals(0, UUID_ID));
+        assertFalse(list.idEquals(0, UUID_ID.toUpperCase()));
+        assertFalse(list.idEquals(0, "3f2b6c1e-8a4d-4e2f-9b1c-0d5e7f8a9b0d"));
+        assertFalse(list.idEquals(0, "case-1"));
+        assertFalse(list.idEquals(0, null));
+
+        assertTrue(list.idEquals(1, "case-1"));
+        assertFalse(list.idEquals(1, "case-2"));
+        assertTrue(list.idEquals(2, UUID_ID.toUpperCase()));
+        assertFalse(list.idEquals(2, UUID_ID));
+        assertTrue(list.idEquals(3, null));
+        assertFalse(list.idEquals(3, "null"));
+    }
+
+    @Test
+    public void comparesNamesAgainstARegion() {
+        assertTrue(list.nameEquals(0, "[登录]", 1, 3));
+        assertFalse(list.nameEquals(0, "[登录]", 0, 3));
+        assertTrue(list.nameEquals(2, "x", 0, 0));
+        // 名称为null时与字符串拼接的结果 "null" 比较
+        assertTrue(list.nameEquals(1, "null [SCENARIO]", 0, 4));
+        assertFalse(list.nameEquals(1, "", 0, 0));
+        assertTrue(list.hasName(0));
+        assertFalse(list.hasName(1));
+    }
+
+    @Test
+    public void returnsCopiesThatDoNotChangeTheList() {
+        list.get(0).setName("已修改");
+        assertEquals("登录", list.getName(0));
+        assertSame(list, CompactTestCaseList.of(list));
+    }
+
+    @Test
+    public void rejectsPositionsOutsideTheList() {
+        try {
+            list.getId(source.size());
+            fail();
+        } catch (IndexOutOfBoundsException expected) {
+            // 与其他列表一致
+        }
+        try {
+            list.idEquals(-1, UUID_ID);
+            fail();
+        } catch (IndexOutOfBoundsException expected) {
+            // 与其他列表一致
+        }
+    }
+}
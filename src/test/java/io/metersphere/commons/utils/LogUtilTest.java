@@ -0,0 +1,52 @@
+package io.metersphere.commons.utils;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * 日志中返回数据的截断，按默认长度上限 2000 个字符
+ */
+public class LogUtilTest {
+
+    private static final int MAX_PAYLOAD_CHARS = 2000;
+
+    @Test
+    public void shortListIsWrittenInFullWithItsSize() {
+        assertEquals("(共2条)[\"a\",\"b\"]", LogUtil.payload(Arrays.asList("a", "b")));
+    }
+
+    @Test
+    public void longListStopsAtTheLimit() {
+        List<String> items = new ArrayList<>();
+        for (int i = 0; i < 10000; i++) {
+            items.add("testcase-" + i);
+        }
+        String payload = LogUtil.payload(items);
+        assertTrue(payload.startsWith("(共10000条)[\"testcase-0\""));
+        assertTrue(payload.endsWith("...]"));
+        assertTrue(payload.length() <= MAX_PAYLOAD_CHARS + "...]".length());
+    }
+
+    @Test
+    public void longObjectIsTruncatedWithItsLength() {
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < 5000; i++) {
+            text.append('x');
+        }
+        String payload = LogUtil.payload(text.toString());
+        assertTrue(payload.endsWith("...(共5002字符)"));
+        assertEquals(MAX_PAYLOAD_CHARS + "...(共5002字符)".length(), payload.length());
+    }
+
+    @Test
+    public void shortObjectIsWrittenAsJson() {
+        assertEquals("\"abc\"", LogUtil.payload("abc"));
+        assertEquals("null", LogUtil.payload(null));
+    }
+}
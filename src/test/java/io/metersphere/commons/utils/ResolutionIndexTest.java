@@ -0,0 +1,105 @@
+package io.metersphere.commons.utils;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+/**
+ * 构建时按ID、名称、显示名称查找
+ */
+public class ResolutionIndexTest {
+
+    private static String[] item(String id, String name, String label) {
+        return new String[]{id, name, label};
+    }
+
+    private static ResolutionIndex<String[]> index(List<String[]> items) {
+        return ResolutionIndex.build(items, item -> item[0], item -> item[1], item -> item[2]);
+    }
+
+    @Test
+    public void findsByIdNameAndLabel() {
+        String[] login = item("1", "登录", "登录 [API] [v1]");
+        String[] logout = item("2", "退出", "退出 [API] [v1]");
+        ResolutionIndex<String[]> index = index(Arrays.asList(login, logout));
+
+        assertSame(logout, index.getById("2"));
+        assertSame(login, index.getByName("登录"));
+        assertSame(logout, index.getByLabel("退出 [API] [v1]"));
+        assertNull(index.getById("3"));
+        assertNull(index.getByName("登录 [API] [v1]"));
+    }
+
+    @Test
+    public void duplicateKeysResolveToTheFirstItem() {
+        String[] first = item("1", "登录", "登录 [API] [v1]");
+        String[] second = item("2", "登录", "登录 [API] [v2]");
+        ResolutionIndex<String[]> index = index(Arrays.asList(first, second));
+
+        assertSame(first, index.getByName("登录"));
+        assertSame(second, index.getByLabel("登录 [API] [v2]"));
+    }
+
+    @Test
+    public void nullKeysAreNotIndexed() {
+        String[] unnamed = item("1", null, null);
+        ResolutionIndex<String[]> index = index(Collections.singletonList(unnamed));
+
+        assertSame(unnamed, index.getById("1"));
+        assertNull(index.getByName(null));
+        assertNull(index.getByName("null"));
+        assertNull(index.getByLabel(null));
+    }
+
+    @Test
+    public void labelColumnIsOptional() {
+        List<String[]> items = Collections.singletonList(item("1", "登录", "登录 [API] [v1]"));
+        ResolutionIndex<String[]> index = ResolutionIndex.build(items, item -> item[0], item -> item[1], null);
+        assertNull(index.getByLabel("登录 [API] [v1]"));
+        assertSame(items.get(0), index.getByName("登录"));
+    }
+
+    @Test
+    public void findsEveryItemInALargeList() {
+        List<String[]> items = new ArrayList<>();
+        for (int i = 0; i < 5000; i++) {
+            items.add(item("id-" + i, "name-" + i, null));
+        }
+        ResolutionIndex<String[]> index = ResolutionIndex.build(items, item -> item[0], item -> item[1], null);
+        for (int i = 0; i < 5000; i++) {
+            assertSame(items.get(i), index.getById("id-" + i));
+            assertSame(items.get(i), index.getByName("name-" + i));
+        }
+        assertNull(index.getById("id-5000"));
+    }
+
+    @Test
+    public void buildAtComparesThroughTheKey() {
+        String[] ids = {"a", "b", "c"};
+        List<Integer> positions = Arrays.asList(0, 1, 2);
+        int[] matches = new int[1];
+        ResolutionIndex.Key id = new ResolutionIndex.Key() {
+            @Override
+            public String of(int position) {
+                return ids[position];
+            }
+
+            @Override
+            public boolean matches(int position, String value) {
+                matches[0]++;
+                return ids[position].equals(value);
+            }
+        };
+        ResolutionIndex<Integer> index = ResolutionIndex.buildAt(positions, id, id, null);
+        matches[0] = 0;
+        assertEquals(2, index.getById("c").intValue());
+        assertEquals(1, matches[0]);
+    }
+}
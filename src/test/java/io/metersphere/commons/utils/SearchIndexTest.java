@@ -0,0 +1,70 @@
+package io.metersphere.commons.utils;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * 自动补全索引的匹配和排序
+ */
+public class SearchIndexTest {
+
+    private static final List<String> NAMES = Arrays.asList("relogin", "User login", "Logout", "login flow", "Login", "Order");
+
+    private final SearchIndex<String> index = SearchIndex.build(NAMES, name -> name);
+
+    @Test
+    public void ranksExactThenPrefixThenWordStartThenContains() {
+        assertEquals(Arrays.asList("Login", "login flow", "User login", "relogin"), index.search("login", 10));
+    }
+
+    @Test
+    public void shortQueryUsesPostingsDirectlyAndShorterNamesFirst() {
+        assertEquals(Arrays.asList("Login", "Logout", "login flow", "User login", "relogin"), index.search("lo", 10));
+        assertEquals(Arrays.asList("Login", "Logout"), index.search("lo", 2));
+    }
+
+    @Test
+    public void ignoresCaseAndSurroundingSpaces() {
+        assertEquals(index.search("login", 10), index.search("  LOGIN ", 10));
+    }
+
+    @Test
+    public void longQueryIsVerifiedAgainstTheName() {
+        // "logi" 和 "gin " 都出现过，但没有名称包含 "login x"
+        assertTrue(index.search("login x", 10).isEmpty());
+        assertEquals(Collections.singletonList("login flow"), index.search("in fl", 10));
+    }
+
+    @Test
+    public void laterOccurrenceAtWordStartCountsAsWordStart() {
+        SearchIndex<String> names = SearchIndex.build(Arrays.asList("ab-xyz", "xyzab ab"), name -> name);
+        assertEquals(Arrays.asList("ab-xyz", "xyzab ab"), names.search("ab", 10));
+        assertEquals(Arrays.asList("xyzab ab", "ab-xyz"), names.search("xyz", 10));
+    }
+
+    @Test
+    public void emptyQueryReturnsFirstItemsInListOrder() {
+        assertEquals(Arrays.asList("relogin", "User login"), index.search("", 2));
+        assertEquals(Arrays.asList("relogin", "User login"), index.search(null, 2));
+    }
+
+    @Test
+    public void unknownQueryOrZeroLimitReturnsNothing() {
+        assertTrue(index.search("payment", 10).isEmpty());
+        assertTrue(index.search("login", 0).isEmpty());
+    }
+
+    @Test
+    public void buildAtReadsLabelsByPositionAndToleratesNull() {
+        String[] labels = {"支付", null, "支付回调"};
+        SearchIndex<Integer> positions = SearchIndex.buildAt(Arrays.asList(0, 1, 2), position -> labels[position]);
+        assertEquals(Arrays.asList("支付", "支付回调"), positions.search("支付", 10));
+        assertEquals(Arrays.asList("支付", "", "支付回调"), positions.search("", 10));
+    }
+}